@@ -3,16 +3,52 @@ package me.itsmas.sql;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.pool.ProxyConnection;
+import me.itsmas.sql.batch.CounterAggregator;
+import me.itsmas.sql.cache.EntityCache;
+import me.itsmas.sql.cache.KeyFilter;
+import me.itsmas.sql.cache.SnapshotStore;
+import me.itsmas.sql.batch.GroupCommitter;
+import me.itsmas.sql.batch.LookupBatcher;
+import me.itsmas.sql.batch.WriteBehindQueue;
+import me.itsmas.sql.connection.ConnectionTracker;
+import me.itsmas.sql.connection.ReleaseHookConnection;
+import me.itsmas.sql.connection.ReplicaSet;
+import me.itsmas.sql.connection.TransactionConnection;
 import me.itsmas.sql.credential.DatabaseCredentials;
+import me.itsmas.sql.execution.BoundedExecutor;
+import me.itsmas.sql.execution.LaneExecutor;
+import me.itsmas.sql.execution.Priority;
+import me.itsmas.sql.execution.SingleFlight;
+import me.itsmas.sql.execution.VirtualThreadExecutor;
 import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.types.InsertOperation;
+import me.itsmas.sql.operation.types.SaveOperation;
+import me.itsmas.sql.operation.types.SingleFetchOperation;
+import me.itsmas.sql.operation.types.TransactionOperation;
+import me.itsmas.sql.operation.types.UpdateOperation;
+import me.itsmas.sql.settings.DatabaseSettings;
 import me.itsmas.sql.util.Logs;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -27,13 +63,69 @@ public class Database
     private final DatabaseCredentials credentials;
 
     /**
-     * Database initialisation
+     * The credentials of the read replicas
+     */
+    private final List<DatabaseCredentials> replicaCredentials;
+
+    /**
+     * The connection pool and driver settings
+     */
+    private final DatabaseSettings settings;
+
+    /**
+     * Database initialisation with the default settings
      *
      * @param credentials The database credential
      */
     public Database(@Nonnull DatabaseCredentials credentials)
+    {
+        this(credentials, DatabaseSettings.defaults().build());
+    }
+
+    /**
+     * Database initialisation
+     *
+     * @see DatabaseSettings#oltp()
+     * @see DatabaseSettings#bulkLoad()
+     *
+     * @param credentials The database credential
+     * @param settings The connection pool and driver settings
+     */
+    public Database(@Nonnull DatabaseCredentials credentials, @Nonnull DatabaseSettings settings)
+    {
+        this(credentials, Collections.emptyList(), settings);
+    }
+
+    /**
+     * Database initialisation with read replicas
+     *
+     * Fetch operations read from the replicas while every other
+     * operation, and raw fetches unless they opt in, runs on the
+     * primary. Each replica has its own
+     * connection pool, created with the same settings as the primary
+     *
+     * @see #fetchReadConnection()
+     * @see #enableReadYourWrites(long, TimeUnit)
+     *
+     * @param credentials The primary database credentials
+     * @param replicaCredentials The credentials of each read replica
+     * @param settings The connection pool and driver settings
+     */
+    public Database(@Nonnull DatabaseCredentials credentials, @Nonnull List<DatabaseCredentials> replicaCredentials, @Nonnull DatabaseSettings settings)
     {
         this.credentials = credentials;
+        this.replicaCredentials = new ArrayList<>(replicaCredentials);
+        this.settings = settings;
+    }
+
+    /**
+     * Fetches the connection pool and driver settings
+     *
+     * @return The settings
+     */
+    public DatabaseSettings getSettings()
+    {
+        return settings;
     }
 
     /**
@@ -76,92 +168,1178 @@ public class Database
         return operation.execute(this);
     }
 
+    /**
+     * Executes a {@link DatabaseOperation} in the given lane,
+     * waiting on the calling thread for its result
+     *
+     * The operation bypasses group commit, write-behind, lookup batching
+     * and deduplication, and is used by the library's own background
+     * writers so they respect the lane's concurrency. It must not be
+     * called from a thread of the lane itself
+     *
+     * @param operation The operation
+     * @param priority The lane to run the operation in
+     *
+     * @return The operation result
+     */
+    public <T> T executeSync(@Nonnull DatabaseOperation<T> operation, @Nonnull Priority priority)
+    {
+        if (executors.get(priority) == null)
+        {
+            return executeSync(operation);
+        }
+
+        try
+        {
+            return submit(operation, priority).join();
+        }
+        catch (CompletionException ex)
+        {
+            if (ex.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
     /**
      * Executes a {@link DatabaseOperation} asynchronously
+     * in the {@link Priority#INTERACTIVE} lane
      *
      * @param operation The operation
      * @return A {@link CompletableFuture} holding the operation result
      */
     public <T> CompletableFuture<T> executeAsync(@Nonnull DatabaseOperation<T> operation)
     {
-        return CompletableFuture.supplyAsync(() -> operation.execute(this), executor);
+        return executeAsync(operation, Priority.INTERACTIVE);
     }
 
     /**
-     * The connection pool
+     * Executes a {@link DatabaseOperation} asynchronously in the given lane
+     *
+     * Background operations run with fewer threads than the
+     * pool has connections, leaving the reserved connections
+     * free for interactive operations
+     *
+     * @see DatabaseSettings#getReservedConnections()
+     *
+     * @param operation The operation
+     * @param priority The lane to run the operation in
+     *
+     * @return A {@link CompletableFuture} holding the operation result
      */
-    private HikariDataSource connectionPool;
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(@Nonnull DatabaseOperation<T> operation, @Nonnull Priority priority)
+    {
+        if (groupCommitter != null && operation instanceof InsertOperation)
+        {
+            return (CompletableFuture<T>) groupCommitter.submit((InsertOperation) operation, priority);
+        }
+
+        if (writeBehindQueue != null && operation instanceof UpdateOperation && ((UpdateOperation) operation).isUniqueKeyUpdate() && !((UpdateOperation) operation).isVersioned())
+        {
+            return (CompletableFuture<T>) writeBehindQueue.submit((UpdateOperation) operation);
+        }
+
+        if (lookupBatcher != null && operation instanceof SingleFetchOperation && ((SingleFetchOperation<?>) operation).isUniqueKeyLookup())
+        {
+            return (CompletableFuture<T>) lookupBatcher.submit((SingleFetchOperation<?>) operation, priority);
+        }
+
+        Object identity = singleFlight == null ? null : operation.getIdentity();
+
+        if (identity != null)
+        {
+            return singleFlight.execute(identity, () -> submit(operation, priority));
+        }
+
+        return submit(operation, priority);
+    }
 
     /**
-     * Fetches a new {@link ProxyConnection} from the pool
+     * Submits an operation to the executor of a lane
      *
-     * @return A new connection
+     * @param operation The operation
+     * @param priority The lane to run the operation in
      *
-     * @throws SQLException If an SQL error is encountered
+     * @return A {@link CompletableFuture} holding the operation result
      */
-    public Connection fetchConnection() throws SQLException
+    private <T> CompletableFuture<T> submit(DatabaseOperation<T> operation, Priority priority)
     {
-        checkArgument(isConnected(), "Database connection is not open");
+        try
+        {
+            return CompletableFuture.supplyAsync(() -> operation.execute(this), executors.get(priority));
+        }
+        catch (RejectedExecutionException ex)
+        {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
 
-        return connectionPool.getConnection();
+            return future;
+        }
     }
 
     /**
-     * The executor for async operations
+     * The single-flight layer for async operations, or null if deduplication is disabled
      */
-    private ExecutorService executor;
+    private SingleFlight singleFlight;
 
     /**
-     * Attempts to open a connection to the database
+     * Enables deduplication of identical async operations
      *
-     * @param credentials The database credentials
+     * Fetches passed to {@link #executeAsync(DatabaseOperation)} while an
+     * identical fetch, with the same conditions and values, is in flight
+     * share its result instead of running their own query
+     *
+     * @see SingleFlight
+     *
+     * @return The single-flight layer
      */
-    private void openConnection(DatabaseCredentials credentials)
+    public SingleFlight enableSingleFlight()
     {
-        checkArgument(!isConnected(), "Already connected to database");
+        checkArgument(singleFlight == null, "Single-flight is already enabled");
 
-        HikariConfig config = new HikariConfig();
+        return singleFlight = new SingleFlight();
+    }
+
+    /**
+     * Fetches the single-flight layer, used to monitor deduplicated operations
+     *
+     * @return The optional single-flight layer
+     */
+    public Optional<SingleFlight> getSingleFlight()
+    {
+        return Optional.ofNullable(singleFlight);
+    }
+
+    /**
+     * The lookup batcher for async unique key fetches, or null if lookup batching is disabled
+     */
+    private LookupBatcher lookupBatcher;
 
-        config.setDataSourceClassName("com.mysql.cj.jdbc.MysqlDataSource");
+    /**
+     * Enables batching of async unique key lookups
+     *
+     * Single fetches by unique key passed to {@link #executeAsync(DatabaseOperation)}
+     * are merged with other lookups of the same class arriving within the given
+     * window and fetched together in one "IN" query, until the database
+     * connection is closed
+     *
+     * @see LookupBatcher
+     *
+     * @param maxBatchSize The maximum amount of distinct keys in a batch
+     * @param maxDelay The maximum time a lookup waits for its batch to fill
+     * @param unit The unit of the delay
+     *
+     * @return The lookup batcher
+     */
+    public LookupBatcher enableLookupBatching(int maxBatchSize, long maxDelay, @Nonnull TimeUnit unit)
+    {
+        checkArgument(lookupBatcher == null, "Lookup batching is already enabled");
 
-        config.setJdbcUrl(String.format("jdbc:mysql//%s:%s/%s", credentials.host, credentials.port, credentials.database));
-        config.addDataSourceProperty("databaseName", credentials.database);
+        return lookupBatcher = new LookupBatcher(this, maxBatchSize, maxDelay, unit);
+    }
 
-        config.setUsername(credentials.username);
-        config.setPassword(credentials.password);
+    /**
+     * Fetches the lookup batcher, used to monitor batched lookups
+     *
+     * @return The optional lookup batcher
+     */
+    public Optional<LookupBatcher> getLookupBatcher()
+    {
+        return Optional.ofNullable(lookupBatcher);
+    }
 
-        config.setConnectionTimeout(30_000L);
+    /**
+     * The group committer for async inserts, or null if group commit is disabled
+     */
+    private GroupCommitter groupCommitter;
 
-        connectionPool = new HikariDataSource(config);
-        executor = Executors.newCachedThreadPool();
+    /**
+     * Enables group commit for async inserts
+     *
+     * Inserts passed to {@link #executeAsync(DatabaseOperation)} are
+     * merged with other inserts of the same class and lane arriving
+     * within the given window and committed together in one statement
+     * in that lane, until the database connection is closed
+     *
+     * @see GroupCommitter
+     *
+     * @param maxBatchSize The maximum amount of inserts in a batch
+     * @param maxDelay The maximum time an insert waits for its batch to fill
+     * @param unit The unit of the delay
+     */
+    public void enableGroupCommit(int maxBatchSize, long maxDelay, @Nonnull TimeUnit unit)
+    {
+        checkArgument(groupCommitter == null, "Group commit is already enabled");
 
-        Logs.info("Connected to database successfully");
+        groupCommitter = new GroupCommitter(this, maxBatchSize, maxDelay, unit);
     }
 
     /**
-     * Fetches whether the database connection is open
+     * The write-behind queue for async updates, or null if write-behind is disabled
+     */
+    private WriteBehindQueue writeBehindQueue;
+
+    /**
+     * Enables write-behind for async updates
      *
-     * @see #connectionPool
+     * Unique key updates passed to {@link #executeAsync(DatabaseOperation)}
+     * are coalesced per object and field, and written in batches
+     * periodically or once the amount of pending rows reaches the
+     * threshold, until the database connection is closed
      *
-     * @return Whether the connection pool is open
+     * @see WriteBehindQueue
+     *
+     * @param flushInterval The interval between flushes
+     * @param unit The unit of the interval
+     * @param flushThreshold The amount of pending rows which triggers an early flush
      */
-    public boolean isConnected()
+    public void enableWriteBehind(long flushInterval, @Nonnull TimeUnit unit, int flushThreshold)
     {
-        return connectionPool != null && !connectionPool.isClosed();
+        checkArgument(writeBehindQueue == null, "Write-behind is already enabled");
+
+        writeBehindQueue = new WriteBehindQueue(this, flushInterval, unit, flushThreshold);
     }
 
     /**
-     * Shuts down the database connection and the executor
+     * Fetches the write-behind queue, used to monitor its flushes and lag
      *
-     * @see #connectionPool
-     * @see #executor
+     * @return The optional write-behind queue
      */
-    private void shutdown()
+    public Optional<WriteBehindQueue> getWriteBehindQueue()
     {
-        if (isConnected())
+        return Optional.ofNullable(writeBehindQueue);
+    }
+
+    /**
+     * The counter aggregator, or null if counter aggregation is disabled
+     */
+    private CounterAggregator counterAggregator;
+
+    /**
+     * Enables in-memory aggregation of counter increments
+     *
+     * Deltas passed to the aggregator are summed in memory and
+     * written as batched increments once per interval, until
+     * the database connection is closed
+     *
+     * @see CounterAggregator
+     *
+     * @param flushInterval The interval between flushes
+     * @param unit The unit of the interval
+     *
+     * @return The counter aggregator
+     */
+    public CounterAggregator enableCounterAggregation(long flushInterval, @Nonnull TimeUnit unit)
+    {
+        checkArgument(counterAggregator == null, "Counter aggregation is already enabled");
+
+        return counterAggregator = new CounterAggregator(this, flushInterval, unit);
+    }
+
+    /**
+     * Fetches the counter aggregator
+     *
+     * @return The optional counter aggregator
+     */
+    public Optional<CounterAggregator> getCounterAggregator()
+    {
+        return Optional.ofNullable(counterAggregator);
+    }
+
+    /**
+     * The entity caches by object class
+     */
+    private final Map<Class<?>, EntityCache<?>> entityCaches = new ConcurrentHashMap<>();
+
+    /**
+     * Enables caching of the objects of a class by their unique key
+     *
+     * Single fetches by the unique key are served from the cache,
+     * inserts are written through and updates invalidate it
+     *
+     * @see EntityCache
+     *
+     * @param clazz The object class
+     * @param maximumSize The maximum amount of cached objects
+     * @param expireAfterWrite The time after which a cached object expires
+     * @param unit The unit of the expiry time
+     *
+     * @return The entity cache
+     */
+    public <T> EntityCache<T> enableEntityCache(@Nonnull Class<T> clazz, long maximumSize, long expireAfterWrite, @Nonnull TimeUnit unit)
+    {
+        checkArgument(!entityCaches.containsKey(clazz), "Entity cache is already enabled for %s", clazz.getSimpleName());
+
+        EntityCache<T> cache = new EntityCache<>(clazz, maximumSize, expireAfterWrite, unit);
+        entityCaches.put(clazz, cache);
+
+        return cache;
+    }
+
+    /**
+     * Fetches the entity cache of a class
+     *
+     * @param clazz The object class
+     *
+     * @return The optional entity cache
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<EntityCache<T>> getEntityCache(@Nonnull Class<T> clazz)
+    {
+        return Optional.ofNullable((EntityCache<T>) entityCaches.get(clazz));
+    }
+
+    /**
+     * The snapshot store for dirty tracking, or null if dirty tracking is disabled
+     */
+    private SnapshotStore snapshotStore;
+
+    /**
+     * Enables dirty tracking of fetched and inserted objects
+     *
+     * Objects have their column values recorded when fetched by unique
+     * key or inserted, and {@link SaveOperation} only writes the columns
+     * which changed since, skipping the write if none did
+     *
+     * @see SnapshotStore
+     *
+     * @return The snapshot store
+     */
+    public SnapshotStore enableDirtyTracking()
+    {
+        checkArgument(snapshotStore == null, "Dirty tracking is already enabled");
+
+        return snapshotStore = new SnapshotStore();
+    }
+
+    /**
+     * Fetches the snapshot store used for dirty tracking
+     *
+     * @return The optional snapshot store
+     */
+    public Optional<SnapshotStore> getSnapshotStore()
+    {
+        return Optional.ofNullable(snapshotStore);
+    }
+
+    /**
+     * The unique key filters by object class
+     */
+    private final Map<Class<?>, KeyFilter> keyFilters = new ConcurrentHashMap<>();
+
+    /**
+     * Enables a Bloom filter over the unique keys of a class,
+     * synchronously scanning its table to fill the filter
+     *
+     * Single fetches by a unique key the filter has never seen return
+     * an empty optional without querying, and inserts add their keys
+     *
+     * Keys must match their rows exactly, so this is not suitable for
+     * string keys under a case-insensitive or accent-insensitive collation,
+     * where a lookup differing from its row only in case would be answered
+     * empty instead of by the query
+     *
+     * @see KeyFilter
+     *
+     * @param clazz The object class
+     * @param expectedRows The expected amount of rows
+     * @param falsePositiveRate The desired false positive probability
+     *
+     * @return The key filter
+     */
+    public KeyFilter enableKeyFilter(@Nonnull Class<?> clazz, int expectedRows, double falsePositiveRate)
+    {
+        checkArgument(!keyFilters.containsKey(clazz), "Key filter is already enabled for %s", clazz.getSimpleName());
+
+        KeyFilter filter = new KeyFilter(clazz, expectedRows, falsePositiveRate);
+        keyFilters.put(clazz, filter);
+
+        filter.load(this);
+
+        return filter;
+    }
+
+    /**
+     * Fetches the unique key filter of a class
+     *
+     * @param clazz The object class
+     *
+     * @return The optional key filter
+     */
+    public Optional<KeyFilter> getKeyFilter(@Nonnull Class<?> clazz)
+    {
+        return Optional.ofNullable(keyFilters.get(clazz));
+    }
+
+    /**
+     * The connection pool
+     */
+    private HikariDataSource connectionPool;
+
+    /**
+     * Fetches a new {@link ProxyConnection} from the primary pool
+     *
+     * Connections fetched here are treated as writes to any table
+     * when routing reads to the replicas
+     *
+     * @see #fetchConnection(Class)
+     * @see #fetchReadConnection()
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public Connection fetchConnection() throws SQLException
+    {
+        return fetchConnection(null);
+    }
+
+    /**
+     * Fetches a new {@link ProxyConnection} from the primary pool
+     * for writing to the table of a class
+     *
+     * With read-your-writes enabled, the window starts when the connection
+     * is fetched and starts again once it is closed, so reads use the
+     * primary while the write runs and for the whole window after it
+     * commits, however long the write takes
+     *
+     * @see #fetchReadConnection(Class)
+     *
+     * @param type The class being written, or null if unknown
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public Connection fetchConnection(@Nullable Class<?> type) throws SQLException
+    {
+        checkArgument(isConnected(), "Database connection is not open");
+
+        Transaction transaction = transactions.get();
+
+        if (transaction != null)
         {
-            connectionPool.close();
-            executor.shutdown();
+            transaction.writtenTypes.add(type == null ? Object.class : type);
+
+            return checkoutPrimary();
+        }
+
+        if (readYourWritesNanos == 0)
+        {
+            return checkoutPrimary();
+        }
+
+        recordWrite(type);
+
+        return ReleaseHookConnection.wrap(checkoutPrimary(), () -> recordWrite(type));
+    }
+
+    /**
+     * Fetches a new {@link ProxyConnection} from the primary pool for
+     * a read which must see every committed write, without counting
+     * as a write when routing reads to the replicas
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public Connection fetchPrimaryConnection() throws SQLException
+    {
+        checkArgument(isConnected(), "Database connection is not open");
+
+        return checkoutPrimary();
+    }
+
+    /**
+     * Fetches a connection from the primary pool, or
+     * the transaction running on the current thread
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    private Connection checkoutPrimary() throws SQLException
+    {
+        Transaction transaction = transactions.get();
+
+        if (transaction != null)
+        {
+            return TransactionConnection.wrap(transaction.connection);
+        }
+
+        Connection connection = connectionPool.getConnection();
+
+        return connectionTracker == null ? connection : connectionTracker.track(connection);
+    }
+
+    /**
+     * The read replica connection pools, or null if there are no replicas
+     */
+    private ReplicaSet replicaSet;
+
+    /**
+     * The time in nanoseconds after a write during which reads use the primary, or 0 if disabled
+     */
+    private long readYourWritesNanos;
+
+    /**
+     * The {@link System#nanoTime()} until which reads of each class use the primary after a write
+     */
+    private final Map<Class<?>, Long> stickyUntilNanos = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link System#nanoTime()} until which reads of every class
+     * use the primary after a write to an unknown table
+     */
+    private volatile long untypedStickyUntilNanos = System.nanoTime();
+
+    /**
+     * The {@link System#nanoTime()} until which reads of unknown
+     * tables use the primary after a write to any table
+     */
+    private volatile long anyStickyUntilNanos = System.nanoTime();
+
+    /**
+     * The amount of reads sent to the primary because of a recent write
+     */
+    private final LongAdder stickyReads = new LongAdder();
+
+    /**
+     * Starts the read-your-writes window after a write
+     *
+     * @see #enableReadYourWrites(long, TimeUnit)
+     *
+     * @param type The class written, or null or {@link Object} if unknown
+     */
+    private void recordWrite(@Nullable Class<?> type)
+    {
+        if (readYourWritesNanos == 0)
+        {
+            return;
+        }
+
+        long until = System.nanoTime() + readYourWritesNanos;
+        anyStickyUntilNanos = until;
+
+        if (type == null || type == Object.class)
+        {
+            untypedStickyUntilNanos = until;
+        }
+        else
+        {
+            stickyUntilNanos.put(type, until);
+        }
+    }
+
+    /**
+     * Fetches whether reads of a class are within the read-your-writes window
+     *
+     * @param type The class being read, or null if unknown
+     *
+     * @return If reads of the class use the primary
+     */
+    private boolean isSticky(@Nullable Class<?> type)
+    {
+        long now = System.nanoTime();
+
+        if (type == null)
+        {
+            return now - anyStickyUntilNanos < 0;
+        }
+
+        Long until = stickyUntilNanos.get(type);
+
+        return now - untypedStickyUntilNanos < 0 || (until != null && now - until < 0);
+    }
+
+    /**
+     * Fetches a connection for a read-only query of an unknown table
+     *
+     * @see #fetchReadConnection(Class)
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public Connection fetchReadConnection() throws SQLException
+    {
+        return fetchReadConnection(null);
+    }
+
+    /**
+     * Fetches a connection for a read-only query of the table of a class
+     *
+     * The connection comes from a replica unless there are no replicas,
+     * a transaction is running on the current thread, or the class was
+     * written within the read-your-writes window
+     *
+     * @see ReplicaSet
+     *
+     * @param type The class being read, or null if unknown
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public Connection fetchReadConnection(@Nullable Class<?> type) throws SQLException
+    {
+        checkArgument(isConnected(), "Database connection is not open");
+
+        if (replicaSet == null || transactions.get() != null)
+        {
+            return checkoutPrimary();
+        }
+
+        if (isSticky(type))
+        {
+            stickyReads.increment();
+            return checkoutPrimary();
+        }
+
+        Connection connection = replicaSet.fetchConnection();
+
+        return connectionTracker == null ? connection : connectionTracker.track(connection);
+    }
+
+    /**
+     * Fetches whether a read of a class may fill the entity cache
+     *
+     * Reads served by the primary always may. Replica reads only may
+     * with read-your-writes enabled and no write to any table within
+     * its window, so a replica still catching up on a recent write
+     * does not cache a stale row for the whole expiry time
+     *
+     * @param type The class being read
+     *
+     * @return If the read may be cached
+     */
+    public boolean isCacheableRead(@Nonnull Class<?> type)
+    {
+        if (replicaSet == null || transactions.get() != null || isSticky(type))
+        {
+            return true;
+        }
+
+        return readYourWritesNanos > 0 && !isSticky(null);
+    }
+
+    /**
+     * Enables read-your-writes consistency for replica reads
+     *
+     * For the given window after a class is written, reads of the class
+     * are sent to the primary instead of the replicas, so data written
+     * is not read back stale while replicas catch up. Writes and reads
+     * of unknown tables, such as raw statements, affect every class
+     *
+     * The window is shared by every caller rather than scoped to the
+     * writer, and should exceed the replication lag, as a row read from
+     * a replica lagging further behind may still be stale and is cached
+     * by the entity cache like any other read
+     *
+     * @param window The time after a write during which reads use the primary
+     * @param unit The unit of the window
+     */
+    public void enableReadYourWrites(long window, @Nonnull TimeUnit unit)
+    {
+        checkArgument(window > 0, "Window must be positive");
+        checkArgument(readYourWritesNanos == 0, "Read-your-writes is already enabled");
+
+        readYourWritesNanos = unit.toNanos(window);
+    }
+
+    /**
+     * Fetches the amount of reads sent to the primary because of a recent write
+     *
+     * @see #enableReadYourWrites(long, TimeUnit)
+     *
+     * @return The sticky read count
+     */
+    public long getStickyReadCount()
+    {
+        return stickyReads.sum();
+    }
+
+    /**
+     * Fetches the read replica connection pools, used to monitor
+     * how reads are spread, which is absent if there are no
+     * replicas or the connection is not open
+     *
+     * @return The optional replica set
+     */
+    public Optional<ReplicaSet> getReplicaSet()
+    {
+        return Optional.ofNullable(replicaSet);
+    }
+
+    /**
+     * The transaction running on each thread
+     */
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
+
+    /**
+     * Fetches whether a transaction is running on the current thread
+     *
+     * @see #runInTransaction(int, Supplier)
+     *
+     * @return If a transaction is running
+     */
+    public boolean isInTransaction()
+    {
+        return transactions.get() != null;
+    }
+
+    /**
+     * Runs an action once the writes made so far are committed
+     *
+     * Inside a transaction the action is deferred until the transaction
+     * commits, and discarded if it rolls back. Otherwise it runs at once
+     *
+     * @param action The action
+     */
+    public void afterCommit(@Nonnull Runnable action)
+    {
+        Transaction transaction = transactions.get();
+
+        if (transaction == null)
+        {
+            action.run();
+        }
+        else
+        {
+            transaction.commitActions.add(action);
+        }
+    }
+
+    /**
+     * Runs an action if the transaction running on the current thread
+     * rolls back, used to undo changes made to objects in memory
+     *
+     * Outside a transaction the action is discarded
+     *
+     * @param action The action
+     */
+    public void onRollback(@Nonnull Runnable action)
+    {
+        Transaction transaction = transactions.get();
+
+        if (transaction != null)
+        {
+            transaction.rollbackActions.add(action);
+        }
+    }
+
+    /**
+     * Runs code in a transaction on one connection
+     *
+     * Every operation executed synchronously on the current thread
+     * while the code runs shares the transaction's connection, and is
+     * committed together once it returns, or rolled back if it throws.
+     * Transactions started while another is running join it
+     *
+     * If the code throws, the rollback actions registered through
+     * {@link #onRollback(Runnable)} run even when the rollback itself
+     * fails, and the code's error is rethrown with any rollback
+     * failures attached as suppressed exceptions
+     *
+     * Entity cache, key filter and dirty tracking updates made by the
+     * operations are applied once the transaction commits, and fetches
+     * inside it bypass the entity cache and key filter
+     *
+     * @see TransactionOperation
+     *
+     * @param isolationLevel The {@link Connection} isolation level, or -1 for the default
+     * @param body The code to run
+     *
+     * @return The result of the code
+     */
+    public <T> T runInTransaction(int isolationLevel, @Nonnull Supplier<T> body)
+    {
+        if (transactions.get() != null)
+        {
+            return body.get();
+        }
+
+        checkArgument(isConnected(), "Database connection is not open");
+
+        Transaction transaction;
+        T result;
+
+        try (Connection connection = checkoutPrimary())
+        {
+            int previousIsolation = connection.getTransactionIsolation();
+
+            if (isolationLevel != -1)
+            {
+                connection.setTransactionIsolation(isolationLevel);
+            }
+
+            connection.setAutoCommit(false);
+
+            transaction = new Transaction(connection);
+            transactions.set(transaction);
+
+            Throwable failure = null;
+
+            try
+            {
+                result = body.get();
+                connection.commit();
+            }
+            catch (Throwable ex)
+            {
+                failure = ex;
+
+                try
+                {
+                    connection.rollback();
+                }
+                catch (Throwable rollbackEx)
+                {
+                    ex.addSuppressed(rollbackEx);
+                }
+                finally
+                {
+                    runRollbackActions(transaction, ex);
+                }
+
+                throw ex;
+            }
+            finally
+            {
+                transactions.remove();
+
+                try
+                {
+                    connection.setAutoCommit(true);
+                    connection.setTransactionIsolation(previousIsolation);
+                }
+                catch (SQLException resetEx)
+                {
+                    if (failure == null)
+                    {
+                        throw resetEx;
+                    }
+
+                    failure.addSuppressed(resetEx);
+                }
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error executing transaction");
+            throw new RuntimeException(ex);
+        }
+
+        transaction.writtenTypes.forEach(this::recordWrite);
+        transaction.commitActions.forEach(Runnable::run);
+
+        return result;
+    }
+
+    /**
+     * Runs the rollback actions of a failed transaction in reverse order
+     *
+     * Every action runs even if an earlier one fails, so versions and
+     * other state are restored as far as possible, and failures are
+     * attached to the transaction's error rather than replacing it
+     *
+     * @param transaction The transaction
+     * @param failure The error the transaction failed with
+     */
+    private static void runRollbackActions(Transaction transaction, Throwable failure)
+    {
+        for (int i = transaction.rollbackActions.size() - 1; i >= 0; i--)
+        {
+            try
+            {
+                transaction.rollbackActions.get(i).run();
+            }
+            catch (RuntimeException ex)
+            {
+                failure.addSuppressed(ex);
+            }
+        }
+    }
+
+    /**
+     * The state of a transaction running on a thread
+     */
+    private static final class Transaction
+    {
+        /**
+         * The connection of the transaction
+         */
+        private final Connection connection;
+
+        /**
+         * The classes written by the transaction, with {@link Object} for unknown tables
+         */
+        private final Set<Class<?>> writtenTypes = new HashSet<>();
+
+        /**
+         * The actions to run once the transaction commits
+         */
+        private final List<Runnable> commitActions = new ArrayList<>();
+
+        /**
+         * The actions to run if the transaction rolls back, in registration order
+         */
+        private final List<Runnable> rollbackActions = new ArrayList<>();
+
+        private Transaction(Connection connection)
+        {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * The connection tracker, or null if leak tracking is disabled
+     */
+    private ConnectionTracker connectionTracker;
+
+    /**
+     * Enables tracking of how long connections are held and by whom
+     *
+     * Connections held longer than the threshold are
+     * logged with the thread which checked them out
+     *
+     * @see ConnectionTracker
+     *
+     * @param warnThreshold The hold time after which a warning is logged
+     * @param unit The unit of the threshold
+     * @param captureStacks Whether to capture the stack trace of each checkout
+     */
+    public void enableLeakTracking(long warnThreshold, @Nonnull TimeUnit unit, boolean captureStacks)
+    {
+        checkArgument(connectionTracker == null, "Leak tracking is already enabled");
+
+        connectionTracker = new ConnectionTracker(warnThreshold, unit, captureStacks);
+    }
+
+    /**
+     * Fetches the connection tracker, used to monitor connection hold times
+     *
+     * @return The optional connection tracker
+     */
+    public Optional<ConnectionTracker> getConnectionTracker()
+    {
+        return Optional.ofNullable(connectionTracker);
+    }
+
+    /**
+     * The executors for async operations, by lane
+     */
+    private final Map<Priority, Executor> executors = new EnumMap<>(Priority.class);
+
+    /**
+     * Fetches the bounded executor of a lane, used to monitor its queue
+     * depth, latency and rejections, which is absent if another kind of
+     * executor is in use or the connection is not open
+     *
+     * @param priority The lane
+     *
+     * @return The optional bounded executor
+     */
+    public Optional<BoundedExecutor> getBoundedExecutor(@Nonnull Priority priority)
+    {
+        Executor executor = executors.get(priority);
+
+        return executor instanceof BoundedExecutor ? Optional.of((BoundedExecutor) executor) : Optional.empty();
+    }
+
+    /**
+     * The lanes over the user-supplied executor, or null if none is supplied
+     */
+    private LaneExecutor laneExecutor;
+
+    /**
+     * Fetches the lanes splitting the user-supplied executor, used to
+     * monitor operations waiting for a permit, which is absent unless
+     * an executor is supplied through the settings
+     *
+     * @return The optional lane executor
+     */
+    public Optional<LaneExecutor> getLaneExecutor()
+    {
+        return Optional.ofNullable(laneExecutor);
+    }
+
+    /**
+     * Fetches the virtual thread executor of a lane, used to monitor
+     * operations waiting for a connection, which is absent unless
+     * virtual threads are enabled and supported by the runtime
+     *
+     * @param priority The lane
+     *
+     * @return The optional virtual thread executor
+     */
+    public Optional<VirtualThreadExecutor> getVirtualThreadExecutor(@Nonnull Priority priority)
+    {
+        Executor executor = executors.get(priority);
+
+        return executor instanceof VirtualThreadExecutor ? Optional.of((VirtualThreadExecutor) executor) : Optional.empty();
+    }
+
+    /**
+     * Attempts to open a connection to the database
+     *
+     * @param credentials The database credentials
+     */
+    private void openConnection(DatabaseCredentials credentials)
+    {
+        checkArgument(!isConnected(), "Already connected to database");
+
+        connectionPool = createPool(credentials, "Database Primary Pool");
+
+        if (!replicaCredentials.isEmpty())
+        {
+            List<HikariDataSource> replicas = new ArrayList<>();
+
+            for (int i = 0; i < replicaCredentials.size(); i++)
+            {
+                replicas.add(createPool(replicaCredentials.get(i), "Database Replica Pool " + (i + 1)));
+            }
+
+            replicaSet = new ReplicaSet(replicas);
+        }
+
+        if (settings.getExecutor() != null)
+        {
+            LaneExecutor lanes = new LaneExecutor(settings.getExecutor(), settings.getMaximumPoolSize(), settings.getBackgroundConcurrency());
+
+            executors.put(Priority.INTERACTIVE, lanes.lane(Priority.INTERACTIVE));
+            executors.put(Priority.BACKGROUND, lanes.lane(Priority.BACKGROUND));
+            laneExecutor = lanes;
+        }
+        else if (settings.isVirtualThreads() && VirtualThreadExecutor.isSupported())
+        {
+            VirtualThreadExecutor interactive = new VirtualThreadExecutor(settings.getMaximumPoolSize());
+
+            executors.put(Priority.INTERACTIVE, interactive);
+            executors.put(Priority.BACKGROUND, new VirtualThreadExecutor(settings.getBackgroundConcurrency(), interactive));
+        }
+        else
+        {
+            if (settings.isVirtualThreads())
+            {
+                Logs.info("Virtual threads are not supported by this runtime, using platform threads");
+            }
+
+            int threads = settings.getExecutorThreads();
+
+            executors.put(Priority.INTERACTIVE, new BoundedExecutor("Database Interactive Worker", threads, settings.getExecutorQueueCapacity(),
+                settings.getOverflowPolicy(), settings.getOverflowTimeoutMillis(), TimeUnit.MILLISECONDS));
+            executors.put(Priority.BACKGROUND, new BoundedExecutor("Database Background Worker", Math.min(threads, settings.getBackgroundConcurrency()),
+                settings.getExecutorQueueCapacity(), settings.getOverflowPolicy(), settings.getOverflowTimeoutMillis(), TimeUnit.MILLISECONDS));
+        }
+
+        Logs.info("Connected to database successfully");
+    }
+
+    /**
+     * Creates a connection pool for a database endpoint
+     *
+     * @param credentials The database credentials
+     * @param poolName The name of the pool
+     *
+     * @return The connection pool
+     */
+    private HikariDataSource createPool(DatabaseCredentials credentials, String poolName)
+    {
+        HikariConfig config = new HikariConfig();
+
+        config.setPoolName(poolName);
+        config.setJdbcUrl(String.format("jdbc:mysql://%s:%s/%s", credentials.host, credentials.port, credentials.database));
+
+        config.setUsername(credentials.username);
+        config.setPassword(credentials.password);
+
+        config.setMaximumPoolSize(settings.getMaximumPoolSize());
+
+        if (settings.getMinimumIdle() != -1)
+        {
+            config.setMinimumIdle(settings.getMinimumIdle());
+        }
+
+        config.setConnectionTimeout(settings.getConnectionTimeoutMillis());
+        config.setIdleTimeout(settings.getIdleTimeoutMillis());
+        config.setMaxLifetime(settings.getMaxLifetimeMillis());
+        config.setLeakDetectionThreshold(settings.getLeakDetectionThresholdMillis());
+
+        settings.getDriverProperties().forEach(config::addDataSourceProperty);
+
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Fetches whether the database connection is open
+     *
+     * @see #connectionPool
+     *
+     * @return Whether the connection pool is open
+     */
+    public boolean isConnected()
+    {
+        return connectionPool != null && !connectionPool.isClosed();
+    }
+
+    /**
+     * Shuts down the database connection and the executors
+     *
+     * @see #connectionPool
+     * @see #executors
+     */
+    private void shutdown()
+    {
+        if (isConnected())
+        {
+            if (lookupBatcher != null)
+            {
+                lookupBatcher.close();
+                lookupBatcher = null;
+            }
+
+            if (counterAggregator != null)
+            {
+                counterAggregator.close();
+                counterAggregator = null;
+            }
+
+            if (writeBehindQueue != null)
+            {
+                writeBehindQueue.close();
+                writeBehindQueue = null;
+            }
+
+            if (groupCommitter != null)
+            {
+                groupCommitter.close();
+                groupCommitter = null;
+            }
+
+            connectionPool.close();
+
+            if (replicaSet != null)
+            {
+                replicaSet.close();
+                replicaSet = null;
+            }
+
+            for (Executor executor : executors.values())
+            {
+                if (executor instanceof BoundedExecutor)
+                {
+                    ((BoundedExecutor) executor).shutdown();
+                }
+                else if (executor instanceof VirtualThreadExecutor)
+                {
+                    ((VirtualThreadExecutor) executor).shutdown();
+                }
+            }
         }
     }
 }
@@ -0,0 +1,17 @@
+package me.itsmas.sql.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a {@link Column} field as the version of an object used for optimistic locking
+ *
+ * The field must be an int or long. Updates of the object only apply if
+ * its version still matches the row, and increment it when they do
+ */
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface Version {}
@@ -0,0 +1,551 @@
+package me.itsmas.sql.batch;
+
+import com.google.common.primitives.Primitives;
+import me.itsmas.sql.Database;
+import me.itsmas.sql.execution.Priority;
+import me.itsmas.sql.operation.types.IncrementOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.Logs;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Accumulates counter deltas in memory and flushes them as batched increments
+ *
+ * Deltas are summed per object class, unique key and field in striped
+ * {@link LongAdder} and {@link DoubleAdder} cells, so incrementing a hot
+ * counter costs a memory add. Increments mark themselves in flight on a
+ * counter striped by thread rather than a shared lock, so threads do not
+ * contend on one cache line. Each flush writes the summed deltas with
+ * one {@link IncrementOperation} per class
+ *
+ * Deltas of a class whose write fails are kept and retried with an
+ * exponential backoff, and dropped with an error once the write has
+ * failed {@link #MAX_ATTEMPTS} times in a row
+ */
+public class CounterAggregator
+{
+    /**
+     * The amount of consecutive failed writes after which a class's deltas are dropped
+     */
+    public static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * The longest time in milliseconds between retries of a failing class
+     */
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The amount of in-flight counter stripes per epoch,
+     * a power of two above the amount of processors
+     */
+    private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1;
+
+    /**
+     * The spacing of stripe counters in longs, so each has its own cache line
+     */
+    private static final int STRIPE_PADDING = 16;
+
+    /**
+     * The database the increments are written to
+     */
+    private final Database database;
+
+    /**
+     * The interval between flushes in milliseconds
+     */
+    private final long flushIntervalMillis;
+
+    /**
+     * The single thread flushes run on
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The epoch currently accumulating deltas
+     */
+    private volatile Epoch current = new Epoch();
+
+    /**
+     * The amount of completed flushes
+     */
+    private final AtomicLong flushCount = new AtomicLong();
+
+    /**
+     * The amount of counter rows written by flushes
+     */
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    /**
+     * The amount of failed writes
+     */
+    private final AtomicLong failedWrites = new AtomicLong();
+
+    /**
+     * The amount of counter rows dropped after repeated failed writes
+     */
+    private final AtomicLong droppedRows = new AtomicLong();
+
+    /**
+     * The retry state of each class whose last write failed, only used by flushes
+     */
+    private final Map<Class<?>, Failure> failures = new HashMap<>();
+
+    /**
+     * {@link CounterAggregator} constructor
+     *
+     * @param database The database to write increments to
+     * @param flushInterval The interval between flushes
+     * @param unit The unit of the interval
+     */
+    public CounterAggregator(@Nonnull Database database, long flushInterval, @Nonnull TimeUnit unit)
+    {
+        checkArgument(flushInterval > 0, "Flush interval must be positive");
+
+        this.database = database;
+        this.flushIntervalMillis = unit.toMillis(flushInterval);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "Database Counter Aggregator");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> flush(false), flushInterval, flushInterval, unit);
+    }
+
+    /**
+     * Adds to an integral counter field of an object
+     *
+     * @param object The object
+     * @param fieldName The counter field
+     * @param delta The amount to add, may be negative
+     */
+    public void increment(@Nonnull Object object, @Nonnull String fieldName, long delta)
+    {
+        increment(object.getClass(), getUniqueKey(object), fieldName, delta);
+    }
+
+    /**
+     * Adds to a decimal counter field of an object
+     *
+     * @param object The object
+     * @param fieldName The counter field
+     * @param delta The amount to add, may be negative
+     */
+    public void increment(@Nonnull Object object, @Nonnull String fieldName, double delta)
+    {
+        increment(object.getClass(), getUniqueKey(object), fieldName, delta);
+    }
+
+    /**
+     * Adds to an integral counter column of the row with the given unique key
+     *
+     * @param clazz The object class
+     * @param uniqueKey The unique key of the row
+     * @param fieldName The counter field
+     * @param delta The amount to add, may be negative
+     */
+    public void increment(@Nonnull Class<?> clazz, @Nonnull Object uniqueKey, @Nonnull String fieldName, long delta)
+    {
+        validate(clazz, fieldName);
+
+        List<Object> key = Arrays.asList(clazz, uniqueKey, fieldName);
+
+        while (true)
+        {
+            Epoch epoch = current;
+            int stripe = epoch.enter();
+
+            try
+            {
+                if (!epoch.closed)
+                {
+                    LongAdder adder = epoch.longs.get(key);
+
+                    if (adder == null)
+                    {
+                        adder = epoch.longs.computeIfAbsent(key, k -> new LongAdder());
+                    }
+
+                    adder.add(delta);
+                    return;
+                }
+            }
+            finally
+            {
+                epoch.exit(stripe);
+            }
+        }
+    }
+
+    /**
+     * Adds to a decimal counter column of the row with the given unique key
+     *
+     * @param clazz The object class
+     * @param uniqueKey The unique key of the row
+     * @param fieldName The counter field
+     * @param delta The amount to add, may be negative
+     */
+    public void increment(@Nonnull Class<?> clazz, @Nonnull Object uniqueKey, @Nonnull String fieldName, double delta)
+    {
+        validate(clazz, fieldName);
+
+        List<Object> key = Arrays.asList(clazz, uniqueKey, fieldName);
+
+        while (true)
+        {
+            Epoch epoch = current;
+            int stripe = epoch.enter();
+
+            try
+            {
+                if (!epoch.closed)
+                {
+                    DoubleAdder adder = epoch.doubles.get(key);
+
+                    if (adder == null)
+                    {
+                        adder = epoch.doubles.computeIfAbsent(key, k -> new DoubleAdder());
+                    }
+
+                    adder.add(delta);
+                    return;
+                }
+            }
+            finally
+            {
+                epoch.exit(stripe);
+            }
+        }
+    }
+
+    /**
+     * Checks a counter field can be incremented, so mistakes
+     * fail the caller rather than a later flush
+     *
+     * @param clazz The object class
+     * @param fieldName The counter field
+     */
+    private static void validate(Class<?> clazz, String fieldName)
+    {
+        ObjectMetadata<?> metadata = ClassTools.getMetadata(clazz);
+        ColumnField field = metadata.getColumn(fieldName);
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+        checkArgument(!metadata.hasVersionColumn(), "Versioned classes cannot be incremented");
+        checkArgument(field != null, "Field %s is not a column", fieldName);
+        checkArgument(Number.class.isAssignableFrom(Primitives.wrap(field.getType())), "Field %s is not numeric", fieldName);
+    }
+
+    /**
+     * Writes every accumulated delta
+     *
+     * The current epoch is swapped for a fresh one, closed, and then
+     * waited on until no increment is in flight on it. Increments mark
+     * themselves in flight before checking whether the epoch is closed,
+     * so those which find it open are waited for and those which find
+     * it closed retry on the fresh one, leaving its sums final
+     *
+     * @param closing Whether the aggregator is closing, in which case
+     *                failing classes are not retried later
+     */
+    private synchronized void flush(boolean closing)
+    {
+        Epoch epoch = current;
+        current = new Epoch();
+
+        epoch.closed = true;
+        epoch.awaitIncrements();
+
+        Map<Class<?>, Map<Object, Map<String, Number>>> rows = new HashMap<>();
+
+        epoch.longs.forEach((key, adder) -> addDelta(rows, key, adder.sum()));
+        epoch.doubles.forEach((key, adder) -> addDelta(rows, key, adder.sum()));
+
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<Class<?>, Map<Object, Map<String, Number>>> entry : rows.entrySet())
+        {
+            Class<?> clazz = entry.getKey();
+            Failure failure = failures.get(clazz);
+
+            if (!closing && failure != null && now < failure.retryTime)
+            {
+                requeue(clazz, entry.getValue());
+                continue;
+            }
+
+            if (write(clazz, entry.getValue()))
+            {
+                failures.remove(clazz);
+                continue;
+            }
+
+            failure = failures.computeIfAbsent(clazz, key -> new Failure());
+            failure.attempts++;
+
+            if (closing || failure.attempts >= MAX_ATTEMPTS)
+            {
+                Logs.severe("Dropping %s counter rows for %s after %s failed writes", entry.getValue().size(), clazz.getSimpleName(), failure.attempts);
+
+                droppedRows.addAndGet(entry.getValue().size());
+                failures.remove(clazz);
+            }
+            else
+            {
+                long backoff = Math.min(flushIntervalMillis << Math.min(failure.attempts, 30), MAX_BACKOFF_MILLIS);
+                failure.retryTime = now + backoff;
+
+                Logs.info("Retrying %s counter rows for %s in %sms", entry.getValue().size(), clazz.getSimpleName(), backoff);
+                requeue(clazz, entry.getValue());
+            }
+        }
+
+        flushCount.incrementAndGet();
+    }
+
+    /**
+     * Adds a summed delta to the rows being written
+     *
+     * @param rows The rows being written
+     * @param key The counter key
+     * @param delta The summed delta
+     */
+    private static void addDelta(Map<Class<?>, Map<Object, Map<String, Number>>> rows, List<Object> key, Number delta)
+    {
+        if (delta.doubleValue() == 0)
+        {
+            return;
+        }
+
+        rows.computeIfAbsent((Class<?>) key.get(0), clazz -> new LinkedHashMap<>())
+            .computeIfAbsent(key.get(1), uniqueKey -> new LinkedHashMap<>())
+            .merge((String) key.get(2), delta, (first, second) -> first.doubleValue() + second.doubleValue());
+    }
+
+    /**
+     * Writes the summed deltas of one class
+     *
+     * @param clazz The object class
+     * @param rows The deltas by unique key and field
+     *
+     * @return Whether the write succeeded
+     */
+    private boolean write(Class<?> clazz, Map<Object, Map<String, Number>> rows)
+    {
+        try
+        {
+            IncrementOperation operation = new IncrementOperation(clazz);
+            rows.forEach(operation::add);
+
+            database.executeSync(operation, Priority.BACKGROUND);
+            flushedRows.addAndGet(rows.size());
+
+            return true;
+        }
+        catch (RuntimeException ex)
+        {
+            failedWrites.incrementAndGet();
+            Logs.severe("Error writing %s counter rows for %s: %s", rows.size(), clazz.getSimpleName(), ex.getMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Adds the deltas of a failed or postponed write back to the current epoch
+     *
+     * @param clazz The object class
+     * @param rows The deltas by unique key and field
+     */
+    private void requeue(Class<?> clazz, Map<Object, Map<String, Number>> rows)
+    {
+        for (Map.Entry<Object, Map<String, Number>> row : rows.entrySet())
+        {
+            for (Map.Entry<String, Number> delta : row.getValue().entrySet())
+            {
+                if (delta.getValue() instanceof Long)
+                {
+                    increment(clazz, row.getKey(), delta.getKey(), delta.getValue().longValue());
+                }
+                else
+                {
+                    increment(clazz, row.getKey(), delta.getKey(), delta.getValue().doubleValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops periodic flushing and synchronously writes every accumulated delta
+     */
+    public void close()
+    {
+        scheduler.shutdown();
+
+        try
+        {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        flush(true);
+    }
+
+    /**
+     * Fetches the amount of completed flushes
+     *
+     * @return The flush count
+     */
+    public long getFlushCount()
+    {
+        return flushCount.get();
+    }
+
+    /**
+     * Fetches the amount of counter rows written by flushes
+     *
+     * @return The flushed row count
+     */
+    public long getFlushedRowCount()
+    {
+        return flushedRows.get();
+    }
+
+    /**
+     * Fetches the amount of failed writes, including retried ones
+     *
+     * @return The failed write count
+     */
+    public long getFailedWriteCount()
+    {
+        return failedWrites.get();
+    }
+
+    /**
+     * Fetches the amount of counter rows dropped after repeated failed writes
+     *
+     * @return The dropped row count
+     */
+    public long getDroppedRowCount()
+    {
+        return droppedRows.get();
+    }
+
+    /**
+     * Fetches the unique key of an object
+     *
+     * @param object The object
+     *
+     * @return The unique key
+     */
+    private static Object getUniqueKey(Object object)
+    {
+        return ClassTools.getMetadata(object.getClass()).getUniqueColumn().get(object);
+    }
+
+    /**
+     * A generation of counter cells, replaced on every flush
+     */
+    private static final class Epoch
+    {
+        /**
+         * The integral counter cells
+         */
+        private final Map<List<Object>, LongAdder> longs = new ConcurrentHashMap<>();
+
+        /**
+         * The decimal counter cells
+         */
+        private final Map<List<Object>, DoubleAdder> doubles = new ConcurrentHashMap<>();
+
+        /**
+         * The amount of increments in flight on the epoch, by stripe, with
+         * each stripe's counter on its own cache line to avoid false sharing
+         */
+        private final AtomicLongArray inFlight = new AtomicLongArray(STRIPES * STRIPE_PADDING);
+
+        /**
+         * Whether the epoch has been closed by a flush
+         */
+        private volatile boolean closed;
+
+        /**
+         * Marks an increment of the current thread in flight
+         *
+         * @return The index of the thread's stripe
+         */
+        private int enter()
+        {
+            long id = Thread.currentThread().getId();
+            int stripe = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (STRIPES - 1);
+
+            inFlight.incrementAndGet(stripe * STRIPE_PADDING);
+
+            return stripe;
+        }
+
+        /**
+         * Marks an increment finished
+         *
+         * @param stripe The index of the thread's stripe
+         */
+        private void exit(int stripe)
+        {
+            inFlight.decrementAndGet(stripe * STRIPE_PADDING);
+        }
+
+        /**
+         * Waits until no increment which found the epoch open is in flight
+         */
+        private void awaitIncrements()
+        {
+            for (int stripe = 0; stripe < STRIPES; stripe++)
+            {
+                while (inFlight.get(stripe * STRIPE_PADDING) != 0)
+                {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * The retry state of a class whose last write failed
+     */
+    private static final class Failure
+    {
+        /**
+         * The amount of consecutive failed writes
+         */
+        private int attempts;
+
+        /**
+         * The time in milliseconds before which the class is not retried
+         */
+        private long retryTime;
+    }
+}
@@ -0,0 +1,323 @@
+package me.itsmas.sql.batch;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.execution.Priority;
+import me.itsmas.sql.operation.types.BatchInsertOperation;
+import me.itsmas.sql.operation.types.InsertOperation;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Merges concurrent asynchronous inserts into batched statements
+ *
+ * Inserts of the same class and lane arriving within the batch window
+ * are sent as one {@link BatchInsertOperation} in a single transaction
+ * in that lane, and each caller's future is completed individually
+ * once the batch commits
+ */
+public class GroupCommitter
+{
+    /**
+     * The database the batches are executed on
+     */
+    private final Database database;
+
+    /**
+     * The maximum amount of inserts in a batch
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The maximum time in milliseconds an insert waits for its batch to fill
+     */
+    private final long maxDelayMillis;
+
+    /**
+     * The scheduler flushing batches once their window has passed
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The batches currently filling, by lane and object class
+     */
+    private final Map<Priority, Map<Class<?>, List<PendingInsert>>> pending = new EnumMap<>(Priority.class);
+
+    /**
+     * {@link GroupCommitter} constructor
+     *
+     * @param database The database to execute batches on
+     * @param maxBatchSize The maximum amount of inserts in a batch
+     * @param maxDelay The maximum time an insert waits for its batch to fill
+     * @param unit The unit of the delay
+     */
+    public GroupCommitter(@Nonnull Database database, int maxBatchSize, long maxDelay, @Nonnull TimeUnit unit)
+    {
+        checkArgument(maxBatchSize > 0, "Batch size must be positive");
+        checkArgument(maxDelay >= 0, "Delay cannot be negative");
+
+        this.database = database;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "Database Group Commit");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        for (Priority priority : Priority.values())
+        {
+            pending.put(priority, new HashMap<>());
+        }
+    }
+
+    /**
+     * Queues an insert to be committed with the current batch of its class and lane
+     *
+     * @param operation The insert operation
+     * @param priority The lane the batch is executed in
+     *
+     * @return A {@link CompletableFuture} completed once the insert is committed
+     */
+    public CompletableFuture<Void> submit(@Nonnull InsertOperation operation, @Nonnull Priority priority)
+    {
+        Object object = operation.getObject();
+        Class<?> clazz = object.getClass();
+
+        PendingInsert insert = new PendingInsert(object);
+        List<PendingInsert> full = null;
+
+        synchronized (pending)
+        {
+            Map<Class<?>, List<PendingInsert>> batches = pending.get(priority);
+            List<PendingInsert> batch = batches.get(clazz);
+
+            if (batch == null)
+            {
+                List<PendingInsert> created = batch = new ArrayList<>();
+
+                batches.put(clazz, created);
+                scheduler.schedule(() -> flush(priority, clazz, created), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+
+            batch.add(insert);
+
+            if (batch.size() >= maxBatchSize)
+            {
+                full = batches.remove(clazz);
+            }
+        }
+
+        if (full != null)
+        {
+            dispatch(full, priority);
+        }
+
+        return insert.future;
+    }
+
+    /**
+     * Flushes a batch once its window has passed,
+     * unless it was already dispatched when full
+     *
+     * @param priority The lane of the batch
+     * @param clazz The class of the batch
+     * @param batch The batch
+     */
+    private void flush(Priority priority, Class<?> clazz, List<PendingInsert> batch)
+    {
+        synchronized (pending)
+        {
+            if (!pending.get(priority).remove(clazz, batch))
+            {
+                return;
+            }
+        }
+
+        dispatch(batch, priority);
+    }
+
+    /**
+     * Executes a batch asynchronously in its lane and completes its futures
+     *
+     * A batch rejected by the lane fails its futures. A batch which failed
+     * otherwise has its inserts retried individually, so only the inserts
+     * which fail on their own are failed, as one further operation in the
+     * lane rather than on the thread completing the batch
+     *
+     * @param batch The batch
+     * @param priority The lane of the batch
+     */
+    private void dispatch(List<PendingInsert> batch, Priority priority)
+    {
+        database.executeAsync(new BatchInsertOperation(getObjects(batch)), priority).whenComplete((result, ex) ->
+        {
+            Throwable cause = unwrap(ex);
+
+            if (cause == null)
+            {
+                batch.forEach(insert -> insert.future.complete(null));
+            }
+            else if (batch.size() == 1 || cause instanceof RejectedExecutionException)
+            {
+                fail(batch, cause);
+            }
+            else
+            {
+                Logs.severe("Error committing batch of %s inserts, retrying individually", batch.size());
+
+                database.executeAsync(db -> insertIndividually(batch), priority).whenComplete((retried, retryEx) ->
+                {
+                    if (retryEx != null)
+                    {
+                        fail(batch, unwrap(retryEx));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Inserts the objects of a failed batch one at a time on the calling
+     * thread and completes each future with the result of its own insert
+     *
+     * @param batch The batch
+     *
+     * @return Nothing
+     */
+    private Void insertIndividually(List<PendingInsert> batch)
+    {
+        for (PendingInsert insert : batch)
+        {
+            try
+            {
+                database.executeSync(new InsertOperation(insert.object));
+                insert.future.complete(null);
+            }
+            catch (RuntimeException ex)
+            {
+                insert.future.completeExceptionally(ex);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Fails the futures of a batch which are not yet completed
+     *
+     * @param batch The batch
+     * @param ex The error
+     */
+    private static void fail(List<PendingInsert> batch, Throwable ex)
+    {
+        batch.forEach(insert -> insert.future.completeExceptionally(ex));
+    }
+
+    /**
+     * Unwraps the error an async operation completed with
+     *
+     * @param ex The error, or null if the operation succeeded
+     *
+     * @return The cause of the error, or null if the operation succeeded
+     */
+    private static Throwable unwrap(Throwable ex)
+    {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * Synchronously commits every pending batch and stops the scheduler
+     */
+    public void close()
+    {
+        List<List<PendingInsert>> batches = new ArrayList<>();
+
+        synchronized (pending)
+        {
+            for (Map<Class<?>, List<PendingInsert>> lane : pending.values())
+            {
+                batches.addAll(lane.values());
+                lane.clear();
+            }
+        }
+
+        scheduler.shutdownNow();
+
+        for (List<PendingInsert> batch : batches)
+        {
+            try
+            {
+                database.executeSync(new BatchInsertOperation(getObjects(batch)));
+                batch.forEach(insert -> insert.future.complete(null));
+            }
+            catch (RuntimeException ex)
+            {
+                if (batch.size() == 1)
+                {
+                    fail(batch, ex);
+                }
+                else
+                {
+                    insertIndividually(batch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetches the objects of a batch
+     *
+     * @param batch The batch
+     *
+     * @return The objects
+     */
+    private static List<Object> getObjects(List<PendingInsert> batch)
+    {
+        List<Object> objects = new ArrayList<>(batch.size());
+
+        for (PendingInsert insert : batch)
+        {
+            objects.add(insert.object);
+        }
+
+        return objects;
+    }
+
+    /**
+     * An insert waiting for its batch to be committed
+     */
+    private static final class PendingInsert
+    {
+        /**
+         * The object to insert
+         */
+        private final Object object;
+
+        /**
+         * The future completed once the insert is committed
+         */
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingInsert(Object object)
+        {
+            this.object = object;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package me.itsmas.sql.batch;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.cache.EntityCache;
+import me.itsmas.sql.cache.SnapshotStore;
+import me.itsmas.sql.execution.Priority;
+import me.itsmas.sql.operation.condition.Conditions;
+import me.itsmas.sql.operation.types.MultiFetchOperation;
+import me.itsmas.sql.operation.types.SingleFetchOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Merges concurrent unique key lookups into batched "IN" queries
+ *
+ * Lookups of the same class and {@link Priority} arriving within the
+ * batch window are fetched with one {@link MultiFetchOperation} in
+ * the lane of their priority, and each caller's
+ * future is completed with the row of its key, or an empty optional
+ * if the row does not exist. String keys are also completed with a row
+ * differing only in case, which the query returns under MySQL's
+ * default case-insensitive collations
+ */
+public class LookupBatcher
+{
+    /**
+     * The database the lookups are executed on
+     */
+    private final Database database;
+
+    /**
+     * The maximum amount of distinct keys in a batch
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The maximum time in milliseconds a lookup waits for its batch to fill
+     */
+    private final long maxDelayMillis;
+
+    /**
+     * The scheduler dispatching batches once their window has passed
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The batches currently filling, by priority and object class
+     */
+    private final Map<Priority, Map<Class<?>, Map<Object, List<CompletableFuture<Optional<Object>>>>>> pending = new EnumMap<>(Priority.class);
+
+    /**
+     * The amount of batched queries dispatched
+     */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * The amount of lookups served by batched queries
+     */
+    private final AtomicLong lookupCount = new AtomicLong();
+
+    /**
+     * {@link LookupBatcher} constructor
+     *
+     * @param database The database to execute lookups on
+     * @param maxBatchSize The maximum amount of distinct keys in a batch
+     * @param maxDelay The maximum time a lookup waits for its batch to fill
+     * @param unit The unit of the delay
+     */
+    public LookupBatcher(@Nonnull Database database, int maxBatchSize, long maxDelay, @Nonnull TimeUnit unit)
+    {
+        checkArgument(maxBatchSize > 0, "Batch size must be positive");
+        checkArgument(maxDelay >= 0, "Delay cannot be negative");
+
+        this.database = database;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "Database Lookup Batcher");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a unique key lookup to be fetched with the current
+     * batch of its class in the {@link Priority#INTERACTIVE} lane
+     *
+     * @param operation The lookup operation
+     *
+     * @return A {@link CompletableFuture} holding the optional object
+     */
+    public <T> CompletableFuture<Optional<T>> submit(@Nonnull SingleFetchOperation<T> operation)
+    {
+        return submit(operation, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Queues a unique key lookup to be fetched with the
+     * current batch of its class in the given lane
+     *
+     * @param operation The lookup operation
+     * @param priority The lane to fetch the batch in
+     *
+     * @return A {@link CompletableFuture} holding the optional object
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<Optional<T>> submit(@Nonnull SingleFetchOperation<T> operation, @Nonnull Priority priority)
+    {
+        Class<T> clazz = operation.getType();
+        Object uniqueKey = ClassTools.getMetadata(clazz).getUniqueColumn().toFieldType(operation.getUniqueKey());
+
+        Optional<T> cached = database.getEntityCache(clazz).flatMap(cache -> cache.get(uniqueKey));
+
+        if (cached.isPresent())
+        {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        if (database.getKeyFilter(clazz).map(filter -> filter.isDefinitelyAbsent(uniqueKey)).orElse(false))
+        {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        CompletableFuture<Optional<Object>> future = new CompletableFuture<>();
+        Map<Object, List<CompletableFuture<Optional<Object>>>> full = null;
+
+        synchronized (pending)
+        {
+            Map<Class<?>, Map<Object, List<CompletableFuture<Optional<Object>>>>> batches = pending.computeIfAbsent(priority, lane -> new HashMap<>());
+            Map<Object, List<CompletableFuture<Optional<Object>>>> batch = batches.get(clazz);
+
+            if (batch == null)
+            {
+                Map<Object, List<CompletableFuture<Optional<Object>>>> created = batch = new LinkedHashMap<>();
+
+                batches.put(clazz, created);
+                scheduler.schedule(() -> flush(priority, clazz, created), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+
+            batch.computeIfAbsent(uniqueKey, key -> new ArrayList<>()).add(future);
+
+            if (batch.size() >= maxBatchSize)
+            {
+                full = batches.remove(clazz);
+            }
+        }
+
+        if (full != null)
+        {
+            dispatch(priority, clazz, full);
+        }
+
+        return (CompletableFuture<Optional<T>>) (CompletableFuture<?>) future;
+    }
+
+    /**
+     * Dispatches a batch once its window has passed,
+     * unless it was already dispatched when full
+     *
+     * @param priority The lane of the batch
+     * @param clazz The class of the batch
+     * @param batch The batch
+     */
+    private void flush(Priority priority, Class<?> clazz, Map<Object, List<CompletableFuture<Optional<Object>>>> batch)
+    {
+        synchronized (pending)
+        {
+            if (!pending.get(priority).remove(clazz, batch))
+            {
+                return;
+            }
+        }
+
+        dispatch(priority, clazz, batch);
+    }
+
+    /**
+     * Fetches the rows of a batch asynchronously and completes its futures
+     *
+     * @param priority The lane to fetch the batch in
+     * @param clazz The class of the batch
+     * @param batch The futures of the batch, by unique key
+     */
+    private <T> void dispatch(Priority priority, Class<T> clazz, Map<Object, List<CompletableFuture<Optional<Object>>>> batch)
+    {
+        database.executeAsync(createFetch(clazz, batch), priority)
+            .whenComplete((objects, ex) -> complete(clazz, batch, objects, ex));
+    }
+
+    /**
+     * Creates the operation fetching the rows of a batch
+     *
+     * @param clazz The class of the batch
+     * @param batch The futures of the batch, by unique key
+     *
+     * @return The fetch operation
+     */
+    private <T> MultiFetchOperation<T> createFetch(Class<T> clazz, Map<Object, List<CompletableFuture<Optional<Object>>>> batch)
+    {
+        batchCount.incrementAndGet();
+        lookupCount.addAndGet(batch.size());
+
+        String column = ClassTools.getMetadata(clazz).getUniqueColumn().getColumnName();
+
+        return new MultiFetchOperation<>(clazz).where(Conditions.in(column, batch.keySet()));
+    }
+
+    /**
+     * Completes the futures of a batch with the row of their key
+     *
+     * @see ColumnField#matchRows
+     *
+     * @param clazz The class of the batch
+     * @param batch The futures of the batch, by unique key
+     * @param objects The fetched objects
+     * @param ex The fetch error, or null if the fetch succeeded
+     */
+    private <T> void complete(Class<T> clazz, Map<Object, List<CompletableFuture<Optional<Object>>>> batch, List<T> objects, Throwable ex)
+    {
+        if (ex != null)
+        {
+            batch.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(ex)));
+            return;
+        }
+
+        ColumnField uniqueField = ClassTools.getMetadata(clazz).getUniqueColumn();
+        Optional<EntityCache<T>> cache = database.getEntityCache(clazz).filter(ignored -> database.isCacheableRead(clazz));
+        Optional<SnapshotStore> snapshots = database.getSnapshotStore();
+
+        for (T object : objects)
+        {
+            cache.ifPresent(entityCache -> entityCache.put(object));
+            snapshots.ifPresent(store -> store.record(object));
+        }
+
+        Map<Object, T> found = uniqueField.matchRows(batch.keySet(), objects);
+
+        batch.forEach((uniqueKey, futures) ->
+        {
+            Optional<Object> result = Optional.ofNullable(found.get(uniqueKey));
+            futures.forEach(future -> future.complete(result));
+        });
+    }
+
+    /**
+     * Synchronously fetches every pending batch and stops the scheduler
+     */
+    public void close()
+    {
+        List<Map<Class<?>, Map<Object, List<CompletableFuture<Optional<Object>>>>>> batches;
+
+        synchronized (pending)
+        {
+            batches = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        scheduler.shutdownNow();
+
+        batches.forEach(lane -> lane.forEach(this::fetchNow));
+    }
+
+    /**
+     * Synchronously fetches the rows of a batch and completes its futures
+     *
+     * @param clazz The class of the batch
+     * @param batch The futures of the batch, by unique key
+     */
+    private <T> void fetchNow(Class<T> clazz, Map<Object, List<CompletableFuture<Optional<Object>>>> batch)
+    {
+        try
+        {
+            complete(clazz, batch, database.executeSync(createFetch(clazz, batch)), null);
+        }
+        catch (RuntimeException ex)
+        {
+            complete(clazz, batch, null, ex);
+        }
+    }
+
+    /**
+     * Fetches the amount of batched queries dispatched
+     *
+     * @return The batch count
+     */
+    public long getBatchCount()
+    {
+        return batchCount.get();
+    }
+
+    /**
+     * Fetches the amount of distinct lookups served by batched queries
+     *
+     * @return The lookup count
+     */
+    public long getLookupCount()
+    {
+        return lookupCount.get();
+    }
+}
@@ -0,0 +1,502 @@
+package me.itsmas.sql.batch;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.execution.Priority;
+import me.itsmas.sql.operation.types.BatchUpdateOperation;
+import me.itsmas.sql.operation.types.UpdateOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Coalesces field updates and writes them behind in batches
+ *
+ * Updates are keyed by object class, unique key and field name, so only
+ * the latest value of each field is written. Pending updates are flushed
+ * periodically, or early once the amount of pending rows reaches the
+ * threshold, as one {@link BatchUpdateOperation} per class
+ *
+ * Rows of a class whose write fails are queued again and retried with an
+ * exponential backoff, keeping any value queued for the same field since,
+ * and their futures are failed once the write has failed
+ * {@link #MAX_ATTEMPTS} times in a row
+ */
+public class WriteBehindQueue
+{
+    /**
+     * The amount of consecutive failed writes after which a class's rows are failed
+     */
+    public static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * The longest time in milliseconds between retries of a failing class
+     */
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The database the updates are written to
+     */
+    private final Database database;
+
+    /**
+     * The interval between periodic flushes in milliseconds
+     */
+    private final long flushIntervalMillis;
+
+    /**
+     * The amount of pending rows which triggers an early flush
+     */
+    private final int flushThreshold;
+
+    /**
+     * The single thread all flushes run on, keeping writes in order
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The pending row updates, by object class and unique key
+     */
+    private Map<List<Object>, PendingRow> pending = new LinkedHashMap<>();
+
+    /**
+     * The time in milliseconds the oldest pending update was queued, or 0 if none are pending
+     */
+    private long oldestPendingTime;
+
+    /**
+     * Whether an early flush has already been requested
+     */
+    private boolean flushRequested;
+
+    /**
+     * The amount of completed flushes
+     */
+    private final AtomicLong flushCount = new AtomicLong();
+
+    /**
+     * The amount of rows written by flushes
+     */
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    /**
+     * The amount of updates superseded by a later value before being written
+     */
+    private final AtomicLong coalescedUpdates = new AtomicLong();
+
+    /**
+     * The amount of failed writes
+     */
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    /**
+     * The duration in milliseconds of the last flush
+     */
+    private volatile long lastFlushMillis;
+
+    /**
+     * The highest write lag in milliseconds seen by a flush
+     */
+    private volatile long maxLagMillis;
+
+    /**
+     * The retry state of each class whose last write failed, only used by flushes
+     */
+    private final Map<Class<?>, Failure> failures = new HashMap<>();
+
+    /**
+     * {@link WriteBehindQueue} constructor
+     *
+     * @param database The database to write updates to
+     * @param flushInterval The interval between periodic flushes
+     * @param unit The unit of the interval
+     * @param flushThreshold The amount of pending rows which triggers an early flush
+     */
+    public WriteBehindQueue(@Nonnull Database database, long flushInterval, @Nonnull TimeUnit unit, int flushThreshold)
+    {
+        checkArgument(flushInterval > 0, "Flush interval must be positive");
+        checkArgument(flushThreshold > 0, "Flush threshold must be positive");
+
+        this.database = database;
+        this.flushIntervalMillis = unit.toMillis(flushInterval);
+        this.flushThreshold = flushThreshold;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "Database Write Behind");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> flush(false), flushInterval, flushInterval, unit);
+    }
+
+    /**
+     * Queues an update, capturing the current value of its field
+     *
+     * @param operation The update operation
+     *
+     * @return A {@link CompletableFuture} completed once the value, or a later one, is written
+     */
+    public CompletableFuture<Void> submit(@Nonnull UpdateOperation operation)
+    {
+        checkArgument(operation.isUniqueKeyUpdate(), "Only unique key updates can be written behind");
+        checkArgument(!operation.isVersioned(), "Versioned updates cannot be written behind");
+
+        Object object = operation.getObject();
+        Class<?> clazz = object.getClass();
+
+        String fieldName = operation.getFieldName();
+        Object uniqueKey = ClassTools.getMetadata(clazz).getUniqueColumn().get(object);
+        Object value = ClassTools.getMetadata(clazz).getColumn(fieldName).get(object);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        synchronized (this)
+        {
+            PendingRow row = pending.computeIfAbsent(Arrays.asList(clazz, uniqueKey), key -> new PendingRow(clazz, uniqueKey));
+
+            if (row.values.containsKey(fieldName))
+            {
+                coalescedUpdates.incrementAndGet();
+            }
+
+            row.values.put(fieldName, value);
+            row.futures.add(future);
+
+            if (oldestPendingTime == 0)
+            {
+                oldestPendingTime = System.currentTimeMillis();
+            }
+
+            if (pending.size() >= flushThreshold && !flushRequested)
+            {
+                flushRequested = true;
+                scheduler.execute(() -> flush(false));
+            }
+        }
+
+        return future;
+    }
+
+    /**
+     * Writes every pending update
+     *
+     * Flushes normally run on the queue's own thread,
+     * this should only be called directly once closed
+     *
+     * @param closing Whether the queue is closing, in which case
+     *                failing classes are not retried later
+     */
+    private void flush(boolean closing)
+    {
+        Map<List<Object>, PendingRow> rows;
+        long queuedTime;
+
+        synchronized (this)
+        {
+            rows = pending;
+            queuedTime = oldestPendingTime;
+
+            pending = new LinkedHashMap<>();
+            oldestPendingTime = 0;
+            flushRequested = false;
+        }
+
+        if (rows.isEmpty())
+        {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        maxLagMillis = Math.max(maxLagMillis, start - queuedTime);
+
+        Map<Class<?>, List<PendingRow>> byClass = new HashMap<>();
+
+        for (PendingRow row : rows.values())
+        {
+            byClass.computeIfAbsent(row.clazz, clazz -> new ArrayList<>()).add(row);
+        }
+
+        for (Map.Entry<Class<?>, List<PendingRow>> entry : byClass.entrySet())
+        {
+            Class<?> clazz = entry.getKey();
+            Failure failure = failures.get(clazz);
+
+            if (!closing && failure != null && start < failure.retryTime)
+            {
+                requeue(entry.getValue(), queuedTime);
+                continue;
+            }
+
+            RuntimeException error = write(clazz, entry.getValue());
+
+            if (error == null)
+            {
+                failures.remove(clazz);
+                continue;
+            }
+
+            failure = failures.computeIfAbsent(clazz, key -> new Failure());
+            failure.attempts++;
+
+            if (closing || failure.attempts >= MAX_ATTEMPTS)
+            {
+                Logs.severe("Failing %s queued updates for %s after %s failed writes", entry.getValue().size(), clazz.getSimpleName(), failure.attempts);
+
+                failures.remove(clazz);
+                entry.getValue().forEach(row -> row.futures.forEach(future -> future.completeExceptionally(error)));
+            }
+            else
+            {
+                long backoff = Math.min(flushIntervalMillis << Math.min(failure.attempts, 30), MAX_BACKOFF_MILLIS);
+                failure.retryTime = start + backoff;
+
+                Logs.info("Retrying %s queued updates for %s in %sms", entry.getValue().size(), clazz.getSimpleName(), backoff);
+                requeue(entry.getValue(), queuedTime);
+            }
+        }
+
+        lastFlushMillis = System.currentTimeMillis() - start;
+        flushCount.incrementAndGet();
+    }
+
+    /**
+     * Writes the pending rows of one class, completing their futures if written
+     *
+     * @param clazz The object class
+     * @param rows The pending rows
+     *
+     * @return The error the write failed with, or null if it succeeded
+     */
+    private RuntimeException write(Class<?> clazz, List<PendingRow> rows)
+    {
+        try
+        {
+            BatchUpdateOperation operation = new BatchUpdateOperation(clazz);
+
+            for (PendingRow row : rows)
+            {
+                operation.add(row.uniqueKey, row.values);
+            }
+
+            database.executeSync(operation, Priority.BACKGROUND);
+            flushedRows.addAndGet(rows.size());
+
+            rows.forEach(row -> row.futures.forEach(future -> future.complete(null)));
+
+            return null;
+        }
+        catch (RuntimeException ex)
+        {
+            Logs.severe("Error writing %s queued updates for %s: %s", rows.size(), clazz.getSimpleName(), ex.getMessage());
+            failedFlushes.incrementAndGet();
+
+            return ex;
+        }
+    }
+
+    /**
+     * Queues the rows of a failed or postponed write again
+     *
+     * Fields updated again since the rows were taken keep their newer
+     * value, which the futures of the older update then wait for
+     *
+     * @param rows The rows
+     * @param queuedTime The time in milliseconds the oldest of the rows was queued
+     */
+    private synchronized void requeue(List<PendingRow> rows, long queuedTime)
+    {
+        for (PendingRow row : rows)
+        {
+            PendingRow newer = pending.get(Arrays.asList(row.clazz, row.uniqueKey));
+
+            if (newer == null)
+            {
+                pending.put(Arrays.asList(row.clazz, row.uniqueKey), row);
+                continue;
+            }
+
+            for (Map.Entry<String, Object> value : row.values.entrySet())
+            {
+                if (newer.values.containsKey(value.getKey()))
+                {
+                    coalescedUpdates.incrementAndGet();
+                }
+                else
+                {
+                    newer.values.put(value.getKey(), value.getValue());
+                }
+            }
+
+            newer.futures.addAll(0, row.futures);
+        }
+
+        if (oldestPendingTime == 0 || queuedTime < oldestPendingTime)
+        {
+            oldestPendingTime = queuedTime;
+        }
+    }
+
+    /**
+     * Stops periodic flushing and synchronously writes every pending update
+     */
+    public void close()
+    {
+        scheduler.shutdown();
+
+        try
+        {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        flush(true);
+    }
+
+    /**
+     * Fetches the amount of rows waiting to be written
+     *
+     * @return The pending row count
+     */
+    public synchronized int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Fetches how long the oldest pending update has been waiting
+     *
+     * @return The current write lag in milliseconds
+     */
+    public synchronized long getLagMillis()
+    {
+        return oldestPendingTime == 0 ? 0 : System.currentTimeMillis() - oldestPendingTime;
+    }
+
+    /**
+     * Fetches the highest write lag seen by a flush
+     *
+     * @return The maximum lag in milliseconds
+     */
+    public long getMaxLagMillis()
+    {
+        return maxLagMillis;
+    }
+
+    /**
+     * Fetches the duration of the last flush
+     *
+     * @return The last flush duration in milliseconds
+     */
+    public long getLastFlushMillis()
+    {
+        return lastFlushMillis;
+    }
+
+    /**
+     * Fetches the amount of completed flushes
+     *
+     * @return The flush count
+     */
+    public long getFlushCount()
+    {
+        return flushCount.get();
+    }
+
+    /**
+     * Fetches the amount of failed writes, including retried ones
+     *
+     * @return The failed write count
+     */
+    public long getFailedFlushCount()
+    {
+        return failedFlushes.get();
+    }
+
+    /**
+     * Fetches the amount of rows written by flushes
+     *
+     * @return The flushed row count
+     */
+    public long getFlushedRowCount()
+    {
+        return flushedRows.get();
+    }
+
+    /**
+     * Fetches the amount of updates superseded
+     * by a later value before being written
+     *
+     * @return The coalesced update count
+     */
+    public long getCoalescedCount()
+    {
+        return coalescedUpdates.get();
+    }
+
+    /**
+     * The pending updates of a single row
+     */
+    private static final class PendingRow
+    {
+        /**
+         * The object class
+         */
+        private final Class<?> clazz;
+
+        /**
+         * The unique key of the row
+         */
+        private final Object uniqueKey;
+
+        /**
+         * The latest value of each updated field
+         */
+        private final Map<String, Object> values = new LinkedHashMap<>();
+
+        /**
+         * The futures of the updates to the row
+         */
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        private PendingRow(Class<?> clazz, Object uniqueKey)
+        {
+            this.clazz = clazz;
+            this.uniqueKey = uniqueKey;
+        }
+    }
+
+    /**
+     * The retry state of a class whose last write failed
+     */
+    private static final class Failure
+    {
+        /**
+         * The amount of consecutive failed writes
+         */
+        private int attempts;
+
+        /**
+         * The time in milliseconds before which the class is not retried
+         */
+        private long retryTime;
+    }
+}
@@ -0,0 +1,124 @@
+package me.itsmas.sql.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+
+import javax.annotation.Nonnull;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cache of the objects of one class by their unique key
+ *
+ * Unique key fetches are served from the cache once loaded, inserts
+ * write the object through and updates invalidate the rows they change.
+ * Cached objects are shared, so every fetch of a key returns the same
+ * instance until it is evicted or invalidated
+ *
+ * @param <T> The object type
+ */
+public class EntityCache<T>
+{
+    /**
+     * The object class
+     */
+    private final Class<T> clazz;
+
+    /**
+     * The unique field of the class
+     */
+    private final ColumnField uniqueField;
+
+    /**
+     * The cached objects by unique key
+     */
+    private final Cache<Object, T> cache;
+
+    /**
+     * {@link EntityCache} constructor
+     *
+     * @param clazz The object class
+     * @param maximumSize The maximum amount of cached objects
+     * @param expireAfterWrite The time after which a cached object expires
+     * @param unit The unit of the expiry time
+     */
+    public EntityCache(@Nonnull Class<T> clazz, long maximumSize, long expireAfterWrite, @Nonnull TimeUnit unit)
+    {
+        checkArgument(maximumSize > 0, "Maximum size must be positive");
+        checkArgument(expireAfterWrite > 0, "Expiry time must be positive");
+
+        this.clazz = clazz;
+        this.uniqueField = ClassTools.getMetadata(clazz).getUniqueColumn();
+
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite, unit)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Fetches a cached object by its unique key
+     *
+     * @param uniqueKey The unique key
+     *
+     * @return The optional cached object
+     */
+    public Optional<T> get(@Nonnull Object uniqueKey)
+    {
+        return Optional.ofNullable(cache.getIfPresent(uniqueKey));
+    }
+
+    /**
+     * Caches an object under its unique key
+     *
+     * @param object The object, which must be of the cached class
+     */
+    public void put(@Nonnull Object object)
+    {
+        cache.put(uniqueField.get(object), clazz.cast(object));
+    }
+
+    /**
+     * Removes the object with the given unique key
+     *
+     * @param uniqueKey The unique key
+     */
+    public void invalidate(@Nonnull Object uniqueKey)
+    {
+        cache.invalidate(uniqueKey);
+    }
+
+    /**
+     * Removes every cached object
+     */
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Fetches the approximate amount of cached objects
+     *
+     * @return The cache size
+     */
+    public long size()
+    {
+        return cache.size();
+    }
+
+    /**
+     * Fetches the hit, miss and eviction statistics of the cache
+     *
+     * @return The cache statistics
+     */
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+}
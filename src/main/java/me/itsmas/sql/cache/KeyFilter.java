@@ -0,0 +1,213 @@
+package me.itsmas.sql.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import me.itsmas.sql.Database;
+import me.itsmas.sql.mapping.Mapping;
+import me.itsmas.sql.operation.types.HandledFetchOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bloom filter over the unique keys of one class's table
+ *
+ * Unique key fetches of keys the filter has never seen return an
+ * empty optional without querying the database. The filter is filled
+ * by a scan of the table and by every insert through the database,
+ * so rows inserted by other means must be followed by a reload
+ *
+ * Keys are compared by their exact string form, so the filter must not
+ * be used for a key column whose collation matches keys the string form
+ * tells apart, such as a VARCHAR key under MySQL's default case-insensitive
+ * collations, where a lookup of "sam" would be answered empty for a row "Sam"
+ */
+public class KeyFilter
+{
+    /**
+     * Funnels keys by their string form
+     */
+    private static final Funnel<Object> KEY_FUNNEL = (key, sink) -> sink.putString(key.toString(), StandardCharsets.UTF_8);
+
+    /**
+     * The compiled metadata of the class
+     */
+    private final ObjectMetadata<?> metadata;
+
+    /**
+     * The filter of seen keys
+     */
+    private volatile BloomFilter<Object> filter;
+
+    /**
+     * The filter being filled by a table scan, or null if no scan is running
+     */
+    private volatile BloomFilter<Object> scanning;
+
+    /**
+     * The expected amount of rows
+     */
+    private final int expectedRows;
+
+    /**
+     * The desired false positive probability
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * Whether the table scan has completed, until which the filter is not consulted
+     */
+    private volatile boolean loaded;
+
+    /**
+     * The amount of lookups answered without a query
+     */
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * {@link KeyFilter} constructor
+     *
+     * @param clazz The object class
+     * @param expectedRows The expected amount of rows
+     * @param falsePositiveRate The desired false positive probability
+     */
+    public KeyFilter(@Nonnull Class<?> clazz, int expectedRows, double falsePositiveRate)
+    {
+        checkArgument(expectedRows > 0, "Expected rows must be positive");
+        checkArgument(falsePositiveRate > 0 && falsePositiveRate < 1, "False positive rate must be between 0 and 1");
+
+        this.metadata = ClassTools.getMetadata(clazz);
+        this.expectedRows = expectedRows;
+        this.falsePositiveRate = falsePositiveRate;
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+
+        this.filter = BloomFilter.create(KEY_FUNNEL, expectedRows, falsePositiveRate);
+    }
+
+    /**
+     * Scans the table into a fresh filter, replacing the current one
+     *
+     * Keys inserted while the scan runs are added to both
+     * filters, so none are lost when the filter is replaced. The
+     * scan reads the primary, as a key missing from a lagging
+     * replica would make the filter report it as absent
+     *
+     * @param database The database to scan
+     */
+    public synchronized void load(@Nonnull Database database)
+    {
+        ColumnField uniqueField = metadata.getUniqueColumn();
+        Mapping<Object> mapping = uniqueField.getMapping();
+
+        checkArgument(mapping != null, "No mapping for unique field %s", uniqueField.getName());
+
+        BloomFilter<Object> scanned = BloomFilter.create(KEY_FUNNEL, expectedRows, falsePositiveRate);
+        scanning = scanned;
+
+        try
+        {
+            database.executeSync(new HandledFetchOperation<>("SELECT " + uniqueField.getColumnName() + " FROM " + metadata.getTable() + ";", results ->
+            {
+                while (results.next())
+                {
+                    scanned.put(mapping.fromResults(results, 1));
+                }
+
+                return null;
+            }).fromPrimary());
+
+            filter = scanned;
+            loaded = true;
+        }
+        finally
+        {
+            scanning = null;
+        }
+    }
+
+    /**
+     * Records a key as existing
+     *
+     * The running scan is read before the current filter, so a scan
+     * replacing the filter in between has the key in its own filter
+     *
+     * @param uniqueKey The unique key
+     */
+    public void put(@Nonnull Object uniqueKey)
+    {
+        BloomFilter<Object> scanning = this.scanning;
+
+        filter.put(uniqueKey);
+
+        if (scanning != null)
+        {
+            scanning.put(uniqueKey);
+        }
+    }
+
+    /**
+     * Records an inserted object's key as existing
+     *
+     * @param object The object
+     */
+    public void putObject(@Nonnull Object object)
+    {
+        put(metadata.getUniqueColumn().get(object));
+    }
+
+    /**
+     * Fetches whether a key definitely has no row, counting the skipped lookup
+     *
+     * @param uniqueKey The unique key
+     *
+     * @return If the key has no row, or false if it may have one or the filter is not loaded
+     */
+    public boolean isDefinitelyAbsent(@Nonnull Object uniqueKey)
+    {
+        if (!loaded || filter.mightContain(uniqueKey))
+        {
+            return false;
+        }
+
+        skipped.increment();
+        return true;
+    }
+
+    /**
+     * Fetches whether the table scan has completed
+     *
+     * @return If the filter is loaded
+     */
+    public boolean isLoaded()
+    {
+        return loaded;
+    }
+
+    /**
+     * Fetches the amount of lookups answered without a query
+     *
+     * @return The skipped lookup count
+     */
+    public long getSkippedCount()
+    {
+        return skipped.sum();
+    }
+
+    /**
+     * Fetches the estimated false positive probability
+     * for the amount of keys currently in the filter
+     *
+     * @return The expected false positive probability
+     */
+    public double getExpectedFalsePositiveRate()
+    {
+        return filter.expectedFpp();
+    }
+}
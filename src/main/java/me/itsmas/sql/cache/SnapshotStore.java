@@ -0,0 +1,144 @@
+package me.itsmas.sql.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Snapshots of the column values objects had when last read or written
+ *
+ * Snapshots are held by object identity with weak references, so they
+ * disappear with the objects. Values are compared by equality when
+ * saving, so mutable column values must be replaced rather than mutated
+ * for their changes to be detected
+ */
+public class SnapshotStore
+{
+    /**
+     * The column values of each tracked object, in column order
+     */
+    private final Cache<Object, Object[]> snapshots = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+
+    /**
+     * The amount of saves skipped because nothing changed
+     */
+    private final LongAdder skippedSaves = new LongAdder();
+
+    /**
+     * Records the current column values of an object
+     *
+     * @param object The object
+     */
+    public void record(@Nonnull Object object)
+    {
+        recordValues(object, capture(object));
+    }
+
+    /**
+     * Reads the current column values of an object, to be
+     * recorded later once the write they belong to commits
+     *
+     * @param object The object
+     *
+     * @return The column values in column order
+     */
+    public Object[] capture(@Nonnull Object object)
+    {
+        List<ColumnField> columns = ClassTools.getMetadata(object.getClass()).getColumns();
+        Object[] values = new Object[columns.size()];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = columns.get(i).get(object);
+        }
+
+        return values;
+    }
+
+    /**
+     * Records already read column values of an object
+     *
+     * @param object The object
+     * @param values The column values in column order
+     */
+    public void recordValues(@Nonnull Object object, @Nonnull Object[] values)
+    {
+        snapshots.put(object, values);
+    }
+
+    /**
+     * Records the value of one column of a tracked object
+     *
+     * @param object The object
+     * @param field The column field
+     * @param value The value written to the column
+     */
+    public void recordValue(@Nonnull Object object, @Nonnull ColumnField field, @Nullable Object value)
+    {
+        Object[] values = snapshots.getIfPresent(object);
+
+        if (values != null)
+        {
+            values[ClassTools.getMetadata(object.getClass()).getColumns().indexOf(field)] = value;
+        }
+    }
+
+    /**
+     * Stops tracking an object, so its next save writes every column
+     *
+     * @param object The object
+     */
+    public void forget(@Nonnull Object object)
+    {
+        snapshots.invalidate(object);
+    }
+
+    /**
+     * Fetches the snapshot of an object
+     *
+     * @param object The object
+     *
+     * @return The column values in column order, or null if the object is not tracked
+     */
+    @Nullable
+    public Object[] get(@Nonnull Object object)
+    {
+        return snapshots.getIfPresent(object);
+    }
+
+    /**
+     * Counts a save skipped because nothing changed
+     */
+    public void recordSkippedSave()
+    {
+        skippedSaves.increment();
+    }
+
+    /**
+     * Fetches the amount of saves skipped because nothing changed
+     *
+     * @return The skipped save count
+     */
+    public long getSkippedSaveCount()
+    {
+        return skippedSaves.sum();
+    }
+
+    /**
+     * Fetches the approximate amount of tracked objects
+     *
+     * @return The tracked object count
+     */
+    public long size()
+    {
+        return snapshots.size();
+    }
+}
@@ -0,0 +1,59 @@
+package me.itsmas.sql.connection;
+
+/**
+ * A pooled connection currently checked out
+ */
+public final class ConnectionHold
+{
+    /**
+     * The name of the thread which checked the connection out
+     */
+    private final String holder;
+
+    /**
+     * The stack trace at checkout, or null if stacks are not captured
+     */
+    private final StackTraceElement[] stackTrace;
+
+    /**
+     * The time in nanoseconds the connection was checked out
+     */
+    final long checkoutTime;
+
+    ConnectionHold(String holder, StackTraceElement[] stackTrace, long checkoutTime)
+    {
+        this.holder = holder;
+        this.stackTrace = stackTrace;
+        this.checkoutTime = checkoutTime;
+    }
+
+    /**
+     * Fetches the name of the thread which checked the connection out
+     *
+     * @return The holder thread name
+     */
+    public String getHolder()
+    {
+        return holder;
+    }
+
+    /**
+     * Fetches the stack trace at checkout
+     *
+     * @return The stack trace, or null if stacks are not captured
+     */
+    public StackTraceElement[] getStackTrace()
+    {
+        return stackTrace;
+    }
+
+    /**
+     * Fetches how long the connection has been held
+     *
+     * @return The hold time in milliseconds
+     */
+    public long getHeldMillis()
+    {
+        return (System.nanoTime() - checkoutTime) / 1_000_000L;
+    }
+}
@@ -0,0 +1,224 @@
+package me.itsmas.sql.connection;
+
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long pooled connections are held and by whom
+ *
+ * Tracked connections are wrapped so returning them to the pool records
+ * the hold time, and holds longer than the warning threshold are logged
+ * together with the stack which checked the connection out
+ */
+public class ConnectionTracker
+{
+    /**
+     * The hold time in nanoseconds after which a warning is logged
+     */
+    private final long warnThresholdNanos;
+
+    /**
+     * Whether to capture the stack trace of each checkout
+     */
+    private final boolean captureStacks;
+
+    /**
+     * The connections currently checked out
+     */
+    private final Set<ConnectionHold> active = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The amount of checkouts
+     */
+    private final LongAdder checkouts = new LongAdder();
+
+    /**
+     * The total hold time in nanoseconds of returned connections
+     */
+    private final LongAdder totalHoldNanos = new LongAdder();
+
+    /**
+     * The longest hold time in nanoseconds of a returned connection
+     */
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * The amount of holds longer than the warning threshold
+     */
+    private final AtomicLong slowHolds = new AtomicLong();
+
+    /**
+     * {@link ConnectionTracker} constructor
+     *
+     * @param warnThreshold The hold time after which a warning is logged
+     * @param unit The unit of the threshold
+     * @param captureStacks Whether to capture the stack trace of each checkout
+     */
+    public ConnectionTracker(long warnThreshold, @Nonnull TimeUnit unit, boolean captureStacks)
+    {
+        this.warnThresholdNanos = unit.toNanos(warnThreshold);
+        this.captureStacks = captureStacks;
+    }
+
+    /**
+     * Starts tracking a connection checked out from the pool
+     *
+     * @param connection The pooled connection
+     *
+     * @return The tracked connection, which must be closed to return it
+     */
+    public Connection track(@Nonnull Connection connection)
+    {
+        Thread thread = Thread.currentThread();
+        StackTraceElement[] stackTrace = captureStacks ? thread.getStackTrace() : null;
+
+        ConnectionHold hold = new ConnectionHold(thread.getName(), stackTrace, System.nanoTime());
+
+        active.add(hold);
+        checkouts.increment();
+
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new TrackingHandler(connection, hold)
+        );
+    }
+
+    /**
+     * Records a connection being returned to the pool
+     *
+     * @param hold The connection hold
+     * @param heldNanos The hold time in nanoseconds
+     */
+    private void release(ConnectionHold hold, long heldNanos)
+    {
+        active.remove(hold);
+
+        totalHoldNanos.add(heldNanos);
+        maxHoldNanos.accumulate(heldNanos);
+
+        if (heldNanos > warnThresholdNanos)
+        {
+            slowHolds.incrementAndGet();
+
+            Logs.severe("Connection held for %sms by %s%s",
+                TimeUnit.NANOSECONDS.toMillis(heldNanos),
+                hold.getHolder(),
+                hold.getStackTrace() == null ? "" : " at " + Arrays.toString(hold.getStackTrace())
+            );
+        }
+    }
+
+    /**
+     * Fetches the connections currently checked out
+     *
+     * @return The active connection holds
+     */
+    public List<ConnectionHold> getActiveHolds()
+    {
+        return new ArrayList<>(active);
+    }
+
+    /**
+     * Fetches the amount of checkouts
+     *
+     * @return The checkout count
+     */
+    public long getCheckoutCount()
+    {
+        return checkouts.sum();
+    }
+
+    /**
+     * Fetches the average hold time of returned connections
+     *
+     * @return The average hold time in milliseconds
+     */
+    public double getAverageHoldMillis()
+    {
+        long returned = checkouts.sum() - active.size();
+
+        return returned <= 0 ? 0 : totalHoldNanos.sum() / 1_000_000D / returned;
+    }
+
+    /**
+     * Fetches the longest hold time of a returned connection
+     *
+     * @return The maximum hold time in milliseconds
+     */
+    public long getMaxHoldMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(maxHoldNanos.get());
+    }
+
+    /**
+     * Fetches the amount of holds longer than the warning threshold
+     *
+     * @return The slow hold count
+     */
+    public long getSlowHoldCount()
+    {
+        return slowHolds.get();
+    }
+
+    /**
+     * {@link InvocationHandler} recording when a tracked connection is closed
+     */
+    private final class TrackingHandler implements InvocationHandler
+    {
+        /**
+         * The pooled connection
+         */
+        private final Connection connection;
+
+        /**
+         * The connection hold
+         */
+        private final ConnectionHold hold;
+
+        /**
+         * Whether the connection has been returned
+         */
+        private boolean released;
+
+        private TrackingHandler(Connection connection, ConnectionHold hold)
+        {
+            this.connection = connection;
+            this.hold = hold;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            if (method.getName().equals("close") && method.getParameterCount() == 0 && !released)
+            {
+                released = true;
+                release(hold, System.nanoTime() - hold.checkoutTime);
+            }
+
+            try
+            {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException ex)
+            {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package me.itsmas.sql.connection;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Wraps a pooled connection to run an action once it is returned
+ *
+ * Used for write connections, whose writes are only committed and
+ * visible to other connections once the connection is closed
+ */
+public final class ReleaseHookConnection
+{
+    private ReleaseHookConnection() {}
+
+    /**
+     * Wraps a connection
+     *
+     * @param connection The pooled connection
+     * @param onRelease The action run after the connection is first closed
+     *
+     * @return The wrapped connection
+     */
+    public static Connection wrap(@Nonnull Connection connection, @Nonnull Runnable onRelease)
+    {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new ReleaseHandler(connection, onRelease)
+        );
+    }
+
+    /**
+     * Forwards connection calls, running the action once the connection is closed
+     */
+    private static final class ReleaseHandler implements InvocationHandler
+    {
+        /**
+         * The pooled connection
+         */
+        private final Connection connection;
+
+        /**
+         * The action run once the connection is closed
+         */
+        private final Runnable onRelease;
+
+        /**
+         * Whether the connection has been returned
+         */
+        private boolean released;
+
+        private ReleaseHandler(Connection connection, Runnable onRelease)
+        {
+            this.connection = connection;
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            boolean releasing = method.getName().equals("close") && method.getParameterCount() == 0 && !released;
+
+            try
+            {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException ex)
+            {
+                throw ex.getCause();
+            }
+            finally
+            {
+                if (releasing)
+                {
+                    released = true;
+                    onRelease.run();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package me.itsmas.sql.connection;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The connection pools of the read replicas of a database
+ *
+ * Each read is sent to the replica with the fewest connections in use,
+ * starting from the next replica in turn so idle replicas share reads
+ * evenly instead of the first one taking them all
+ */
+public class ReplicaSet
+{
+    /**
+     * The replica connection pools
+     */
+    private final List<HikariDataSource> replicas;
+
+    /**
+     * The counter rotating which replica is considered first
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The amount of reads sent to each replica
+     */
+    private final AtomicLongArray reads;
+
+    /**
+     * {@link ReplicaSet} constructor
+     *
+     * @param replicas The replica connection pools
+     */
+    public ReplicaSet(@Nonnull List<HikariDataSource> replicas)
+    {
+        checkArgument(!replicas.isEmpty(), "At least one replica is required");
+
+        this.replicas = new ArrayList<>(replicas);
+        this.reads = new AtomicLongArray(replicas.size());
+    }
+
+    /**
+     * Fetches a connection from the least busy replica
+     *
+     * @return A new connection
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public Connection fetchConnection() throws SQLException
+    {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        int chosen = start;
+        int fewestActive = Integer.MAX_VALUE;
+
+        for (int i = 0; i < replicas.size(); i++)
+        {
+            int index = (start + i) % replicas.size();
+            int active = getActiveConnections(index);
+
+            if (active < fewestActive)
+            {
+                chosen = index;
+                fewestActive = active;
+            }
+        }
+
+        reads.incrementAndGet(chosen);
+
+        return replicas.get(chosen).getConnection();
+    }
+
+    /**
+     * Fetches the amount of replicas
+     *
+     * @return The replica count
+     */
+    public int getReplicaCount()
+    {
+        return replicas.size();
+    }
+
+    /**
+     * Fetches the amount of connections in use on a replica
+     *
+     * @param replica The replica index
+     *
+     * @return The active connection count
+     */
+    public int getActiveConnections(int replica)
+    {
+        HikariPoolMXBean pool = replicas.get(replica).getHikariPoolMXBean();
+
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    /**
+     * Fetches the amount of reads sent to a replica
+     *
+     * @param replica The replica index
+     *
+     * @return The read count
+     */
+    public long getReadCount(int replica)
+    {
+        return reads.get(replica);
+    }
+
+    /**
+     * Closes every replica connection pool
+     */
+    public void close()
+    {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,97 @@
+package me.itsmas.sql.connection;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Wraps the connection of a running transaction for the operations inside it
+ *
+ * Operations close, commit and roll back the connections they fetch,
+ * which inside a transaction must be left to the transaction itself,
+ * so those calls are ignored by the wrapper. Savepoint rollbacks are
+ * still forwarded to the connection
+ */
+public final class TransactionConnection
+{
+    private TransactionConnection() {}
+
+    /**
+     * The connection methods without parameters controlled by the transaction
+     */
+    private static final Set<String> IGNORED_METHODS = new HashSet<>(Arrays.asList("close", "commit", "rollback"));
+
+    /**
+     * Wraps a transaction connection
+     *
+     * @param connection The connection of the transaction
+     *
+     * @return The wrapped connection
+     */
+    public static Connection wrap(@Nonnull Connection connection)
+    {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new TransactionHandler(connection)
+        );
+    }
+
+    /**
+     * Forwards connection calls, ignoring those controlled by the transaction
+     */
+    private static final class TransactionHandler implements InvocationHandler
+    {
+        /**
+         * The connection of the transaction
+         */
+        private final Connection connection;
+
+        private TransactionHandler(Connection connection)
+        {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            if (isIgnored(method))
+            {
+                return null;
+            }
+
+            try
+            {
+                return method.invoke(connection, args);
+            }
+            catch (InvocationTargetException ex)
+            {
+                throw ex.getCause();
+            }
+        }
+
+        /**
+         * Fetches whether a call is controlled by the transaction, which
+         * leaves savepoint rollbacks and other overloads forwarded
+         *
+         * @param method The called method
+         *
+         * @return If the call is ignored
+         */
+        private boolean isIgnored(Method method)
+        {
+            if (method.getName().equals("setAutoCommit"))
+            {
+                return method.getParameterCount() == 1;
+            }
+
+            return method.getParameterCount() == 0 && IGNORED_METHODS.contains(method.getName());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package me.itsmas.sql.execution;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Executor for async operations with a fixed amount of threads and a bounded queue
+ *
+ * Sizing the threads to the connection pool keeps surplus operations
+ * queued rather than blocked waiting for a connection, and the bounded
+ * queue applies the {@link OverflowPolicy} once it fills up
+ *
+ * Under {@link OverflowPolicy#BLOCK}, submitters take one of a fixed
+ * amount of slots for the threads and queue before the operation is
+ * handed to the pool, so a submitter only waits for a slot and every
+ * accepted operation goes through the pool and is run by a worker
+ */
+public class BoundedExecutor implements Executor
+{
+    /**
+     * The underlying thread pool
+     */
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * The policy applied when the queue is full
+     */
+    private final OverflowPolicy policy;
+
+    /**
+     * The time in milliseconds a blocked submitter waits for queue space
+     */
+    private final long overflowTimeoutMillis;
+
+    /**
+     * The slots for running and queued operations under {@link OverflowPolicy#BLOCK}, or null
+     */
+    private final Semaphore slots;
+
+    /**
+     * The amount of rejected operations
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * The amount of operations run on the submitting thread
+     */
+    private final AtomicLong callerRuns = new AtomicLong();
+
+    /**
+     * The amount of completed operations
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * The total time in nanoseconds operations waited in the queue
+     */
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    /**
+     * The longest time in nanoseconds an operation waited in the queue
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * The total time in nanoseconds operations took to run
+     */
+    private final LongAdder totalRunNanos = new LongAdder();
+
+    /**
+     * {@link BoundedExecutor} constructor
+     *
+     * @param name The thread name prefix
+     * @param threads The amount of threads
+     * @param queueCapacity The maximum amount of queued operations
+     * @param policy The policy applied when the queue is full
+     * @param overflowTimeout The time a blocked submitter waits for queue space
+     * @param unit The unit of the timeout
+     */
+    public BoundedExecutor(@Nonnull String name, int threads, int queueCapacity, @Nonnull OverflowPolicy policy, long overflowTimeout, @Nonnull TimeUnit unit)
+    {
+        checkArgument(threads > 0, "Thread count must be positive");
+        checkArgument(queueCapacity > 0, "Queue capacity must be positive");
+
+        this.policy = policy;
+        this.overflowTimeoutMillis = unit.toMillis(overflowTimeout);
+
+        this.slots = policy == OverflowPolicy.BLOCK ? new Semaphore(threads + queueCapacity, true) : null;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        BlockingQueue<Runnable> queue = slots == null ? new ArrayBlockingQueue<>(queueCapacity) : new LinkedBlockingQueue<>();
+
+        this.pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, queue, runnable ->
+        {
+            Thread thread = new Thread(runnable, name + " " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }, this::handleOverflow);
+
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command)
+    {
+        if (slots != null && !acquireSlot())
+        {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException(String.format("Async operation queue is full (%s queued)", pool.getQueue().size()));
+        }
+
+        long queued = System.nanoTime();
+
+        try
+        {
+            pool.execute(() ->
+            {
+                long start = System.nanoTime();
+
+                totalWaitNanos.add(start - queued);
+                maxWaitNanos.accumulateAndGet(start - queued, Math::max);
+
+                try
+                {
+                    command.run();
+                }
+                finally
+                {
+                    if (slots != null)
+                    {
+                        slots.release();
+                    }
+
+                    totalRunNanos.add(System.nanoTime() - start);
+                    completed.increment();
+                }
+            });
+        }
+        catch (RejectedExecutionException ex)
+        {
+            if (slots != null)
+            {
+                slots.release();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits for a slot for an operation under {@link OverflowPolicy#BLOCK}
+     *
+     * @return Whether a slot was taken within the timeout
+     */
+    private boolean acquireSlot()
+    {
+        try
+        {
+            return slots.tryAcquire(overflowTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Applies the overflow policy to an operation which did not fit in the queue
+     *
+     * @param command The operation
+     * @param executor The thread pool
+     */
+    private void handleOverflow(Runnable command, ThreadPoolExecutor executor)
+    {
+        if (executor.isShutdown())
+        {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+
+        if (policy == OverflowPolicy.CALLER_RUNS)
+        {
+            callerRuns.incrementAndGet();
+            command.run();
+            return;
+        }
+
+        rejected.incrementAndGet();
+        throw new RejectedExecutionException(String.format("Async operation queue is full (%s queued)", executor.getQueue().size()));
+    }
+
+    /**
+     * Fetches the amount of operations waiting for a thread
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth()
+    {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Fetches the amount of operations currently running
+     *
+     * @return The active count
+     */
+    public int getActiveCount()
+    {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * Fetches the amount of operations rejected because the queue was full
+     *
+     * @return The rejected count
+     */
+    public long getRejectedCount()
+    {
+        return rejected.get();
+    }
+
+    /**
+     * Fetches the amount of operations run on
+     * the submitting thread because the queue was full
+     *
+     * @return The caller runs count
+     */
+    public long getCallerRunsCount()
+    {
+        return callerRuns.get();
+    }
+
+    /**
+     * Fetches the amount of completed operations
+     *
+     * @return The completed count
+     */
+    public long getCompletedCount()
+    {
+        return completed.sum();
+    }
+
+    /**
+     * Fetches the average time operations waited in the queue
+     *
+     * @return The average wait in milliseconds
+     */
+    public double getAverageWaitMillis()
+    {
+        long count = completed.sum();
+
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000D / count;
+    }
+
+    /**
+     * Fetches the longest time an operation waited in the queue
+     *
+     * @return The maximum wait in milliseconds
+     */
+    public double getMaxWaitMillis()
+    {
+        return maxWaitNanos.get() / 1_000_000D;
+    }
+
+    /**
+     * Fetches the average time operations took to run
+     *
+     * @return The average run time in milliseconds
+     */
+    public double getAverageRunMillis()
+    {
+        long count = completed.sum();
+
+        return count == 0 ? 0 : totalRunNanos.sum() / 1_000_000D / count;
+    }
+
+    /**
+     * Stops accepting operations, letting queued ones finish
+     */
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+}
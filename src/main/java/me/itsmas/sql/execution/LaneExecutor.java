@@ -0,0 +1,247 @@
+package me.itsmas.sql.execution;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Splits a user-supplied executor into an interactive and a background lane
+ *
+ * Operations are handed to the executor only while a permit is free and
+ * otherwise wait in the queue of their lane, so no thread of the executor
+ * is blocked waiting. Both lanes together run at most the total permits
+ * and background operations at most their own share, leaving the rest
+ * reserved for interactive operations, which are also handed over first
+ * whenever a permit frees up
+ */
+public class LaneExecutor
+{
+    /**
+     * The executor running the operations
+     */
+    private final Executor executor;
+
+    /**
+     * The maximum amount of operations running in both lanes
+     */
+    private final int permits;
+
+    /**
+     * The maximum amount of background operations running
+     */
+    private final int backgroundPermits;
+
+    /**
+     * The operations waiting for a permit, by lane
+     */
+    private final Map<Priority, Queue<Runnable>> waiting = new EnumMap<>(Priority.class);
+
+    /**
+     * The amount of operations running in both lanes
+     */
+    private int running;
+
+    /**
+     * The amount of background operations running
+     */
+    private int backgroundRunning;
+
+    /**
+     * {@link LaneExecutor} constructor
+     *
+     * @param executor The executor running the operations
+     * @param permits The maximum amount of operations running in both lanes
+     * @param backgroundPermits The maximum amount of background operations running
+     */
+    public LaneExecutor(@Nonnull Executor executor, int permits, int backgroundPermits)
+    {
+        checkArgument(permits > 0, "Permit count must be positive");
+        checkArgument(backgroundPermits > 0 && backgroundPermits <= permits, "Background permits must be positive and at most the permit count");
+
+        this.executor = executor;
+        this.permits = permits;
+        this.backgroundPermits = backgroundPermits;
+
+        for (Priority priority : Priority.values())
+        {
+            waiting.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Fetches the executor of a lane
+     *
+     * @param priority The lane
+     *
+     * @return The executor submitting operations to the lane
+     */
+    public Executor lane(@Nonnull Priority priority)
+    {
+        return command -> execute(command, priority);
+    }
+
+    /**
+     * Runs an operation in a lane once a permit is free
+     *
+     * @param command The operation
+     * @param priority The lane
+     *
+     * @throws RejectedExecutionException If the executor rejects an operation able to run immediately
+     */
+    public void execute(@Nonnull Runnable command, @Nonnull Priority priority)
+    {
+        synchronized (waiting)
+        {
+            if (!waiting.get(priority).isEmpty() || !tryTake(priority))
+            {
+                waiting.get(priority).add(command);
+                return;
+            }
+        }
+
+        try
+        {
+            dispatch(command, priority);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            release(priority);
+            throw ex;
+        }
+    }
+
+    /**
+     * Fetches the amount of operations waiting for a permit in a lane
+     *
+     * @param priority The lane
+     *
+     * @return The waiting count
+     */
+    public int getWaitingCount(@Nonnull Priority priority)
+    {
+        synchronized (waiting)
+        {
+            return waiting.get(priority).size();
+        }
+    }
+
+    /**
+     * Takes a permit for an operation of a lane if one is free
+     *
+     * @param priority The lane
+     *
+     * @return Whether a permit was taken
+     */
+    private boolean tryTake(Priority priority)
+    {
+        if (running >= permits || (priority == Priority.BACKGROUND && backgroundRunning >= backgroundPermits))
+        {
+            return false;
+        }
+
+        running++;
+
+        if (priority == Priority.BACKGROUND)
+        {
+            backgroundRunning++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Hands an operation holding a permit to the executor
+     *
+     * @param command The operation
+     * @param priority The lane of the operation
+     */
+    private void dispatch(Runnable command, Priority priority)
+    {
+        executor.execute(() ->
+        {
+            try
+            {
+                command.run();
+            }
+            finally
+            {
+                release(priority);
+            }
+        });
+    }
+
+    /**
+     * Returns the permit of a finished operation and hands waiting operations to the executor
+     *
+     * Operations the executor rejects at this point have no submitter
+     * left to fail, so they run on the thread returning the permit
+     *
+     * @param priority The lane of the finished operation
+     */
+    private void release(Priority priority)
+    {
+        synchronized (waiting)
+        {
+            running--;
+
+            if (priority == Priority.BACKGROUND)
+            {
+                backgroundRunning--;
+            }
+        }
+
+        while (true)
+        {
+            Runnable next = null;
+            Priority lane = null;
+
+            synchronized (waiting)
+            {
+                for (Priority candidate : Priority.values())
+                {
+                    if (!waiting.get(candidate).isEmpty() && tryTake(candidate))
+                    {
+                        next = waiting.get(candidate).poll();
+                        lane = candidate;
+                        break;
+                    }
+                }
+            }
+
+            if (next == null)
+            {
+                return;
+            }
+
+            try
+            {
+                dispatch(next, lane);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                try
+                {
+                    next.run();
+                }
+                finally
+                {
+                    synchronized (waiting)
+                    {
+                        running--;
+
+                        if (lane == Priority.BACKGROUND)
+                        {
+                            backgroundRunning--;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
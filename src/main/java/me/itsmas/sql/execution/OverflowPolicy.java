@@ -0,0 +1,23 @@
+package me.itsmas.sql.execution;
+
+/**
+ * What happens to async operations submitted while the executor queue is full
+ */
+public enum OverflowPolicy
+{
+    /**
+     * The operation is rejected immediately, the default
+     */
+    FAIL_FAST,
+
+    /**
+     * The operation runs on the submitting thread, slowing the submitter down
+     */
+    CALLER_RUNS,
+
+    /**
+     * The submitting thread waits for queue space, and the
+     * operation is rejected if none frees up within the timeout
+     */
+    BLOCK
+}
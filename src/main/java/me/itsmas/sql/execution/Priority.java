@@ -0,0 +1,19 @@
+package me.itsmas.sql.execution;
+
+/**
+ * The lane an async operation is scheduled in
+ */
+public enum Priority
+{
+    /**
+     * Latency-critical work, such as lookups a player is waiting on,
+     * which may use every connection including the reserved ones
+     */
+    INTERACTIVE,
+
+    /**
+     * Throughput work, such as bulk inserts and periodic saves,
+     * which cannot use the connections reserved for interactive work
+     */
+    BACKGROUND
+}
@@ -0,0 +1,97 @@
+package me.itsmas.sql.execution;
+
+import me.itsmas.sql.operation.DatabaseOperation;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shares the execution of identical in-flight operations
+ *
+ * An operation submitted while another with the same
+ * {@link DatabaseOperation#getIdentity()} is running waits for
+ * that execution's result instead of running again. Executions
+ * are forgotten once they complete, so results are never stale
+ */
+public class SingleFlight
+{
+    /**
+     * The results of the executions in flight, by operation identity
+     */
+    private final Map<Object, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * The amount of operations which shared another execution
+     */
+    private final LongAdder deduplicated = new LongAdder();
+
+    /**
+     * Runs an execution unless an identical one is already in flight
+     *
+     * @param identity The operation identity
+     * @param execution Starts the execution of the operation
+     *
+     * @return A {@link CompletableFuture} holding the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(@Nonnull Object identity, @Nonnull Supplier<CompletableFuture<T>> execution)
+    {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = flights.putIfAbsent(identity, flight);
+
+        if (existing != null)
+        {
+            deduplicated.increment();
+            return (CompletableFuture<T>) existing.thenApply(result -> result);
+        }
+
+        try
+        {
+            execution.get().whenComplete((result, ex) ->
+            {
+                flights.remove(identity, flight);
+
+                if (ex == null)
+                {
+                    flight.complete(result);
+                }
+                else
+                {
+                    flight.completeExceptionally(ex);
+                }
+            });
+        }
+        catch (RuntimeException ex)
+        {
+            flights.remove(identity, flight);
+            flight.completeExceptionally(ex);
+        }
+
+        return (CompletableFuture<T>) flight.thenApply(result -> result);
+    }
+
+    /**
+     * Fetches the amount of executions currently in flight
+     *
+     * @return The in-flight count
+     */
+    public int getInFlightCount()
+    {
+        return flights.size();
+    }
+
+    /**
+     * Fetches the amount of operations which shared
+     * an identical execution instead of running
+     *
+     * @return The deduplicated count
+     */
+    public long getDeduplicatedCount()
+    {
+        return deduplicated.sum();
+    }
+}
@@ -0,0 +1,257 @@
+package me.itsmas.sql.execution;
+
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Executor running each async operation on its own virtual thread
+ *
+ * Operations waiting for a permit park their virtual thread rather than
+ * a platform thread, so thousands can be in flight cheaply, while the
+ * permits cap how many hold a connection at once. Virtual threads are
+ * looked up reflectively as the library is built for Java 8
+ *
+ * An executor may also draw on the permits of another, so one lane is
+ * capped below the other and both together never exceed its permits
+ */
+public class VirtualThreadExecutor implements Executor
+{
+    /**
+     * The factory method of the virtual thread executor, or null if unsupported by the runtime
+     */
+    private static final Method FACTORY = findFactory();
+
+    /**
+     * The virtual thread per task executor
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The permits limiting concurrently running operations
+     */
+    private final Semaphore permits;
+
+    /**
+     * The permits of the executor this one shares, or null if none
+     */
+    private final Semaphore sharedPermits;
+
+    /**
+     * The amount of completed operations
+     */
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * The total time in nanoseconds operations waited for a permit
+     */
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    /**
+     * The longest time in nanoseconds an operation waited for a permit
+     */
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * The total time in nanoseconds operations took to run
+     */
+    private final LongAdder totalRunNanos = new LongAdder();
+
+    /**
+     * {@link VirtualThreadExecutor} constructor
+     *
+     * @see #isSupported()
+     *
+     * @param concurrency The maximum amount of concurrently running operations
+     */
+    public VirtualThreadExecutor(int concurrency)
+    {
+        this(concurrency, null);
+    }
+
+    /**
+     * {@link VirtualThreadExecutor} constructor drawing on the permits of another executor
+     *
+     * Operations hold a permit of both executors while running, so the
+     * shared executor's concurrency caps the operations of both
+     *
+     * @see #isSupported()
+     *
+     * @param concurrency The maximum amount of concurrently running operations
+     * @param shared The executor whose permits are shared, or null
+     */
+    public VirtualThreadExecutor(int concurrency, @Nullable VirtualThreadExecutor shared)
+    {
+        checkArgument(concurrency > 0, "Concurrency must be positive");
+        checkArgument(isSupported(), "Virtual threads are not supported by this runtime");
+
+        this.permits = new Semaphore(concurrency, true);
+        this.sharedPermits = shared == null ? null : shared.permits;
+
+        try
+        {
+            this.executor = (ExecutorService) FACTORY.invoke(null);
+        }
+        catch (ReflectiveOperationException ex)
+        {
+            Logs.severe("Error creating virtual thread executor");
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Fetches whether the runtime supports virtual threads
+     *
+     * @return Whether virtual threads are supported
+     */
+    public static boolean isSupported()
+    {
+        return FACTORY != null;
+    }
+
+    /**
+     * Runs an operation on a new virtual thread once permits are free
+     *
+     * Permits are awaited uninterruptibly, so every submitted operation
+     * runs and completes its future. An interrupt received while waiting
+     * remains set on the thread when the operation runs
+     *
+     * @param command The operation
+     */
+    @Override
+    public void execute(@Nonnull Runnable command)
+    {
+        long queued = System.nanoTime();
+
+        executor.execute(() ->
+        {
+            permits.acquireUninterruptibly();
+
+            if (sharedPermits != null)
+            {
+                sharedPermits.acquireUninterruptibly();
+            }
+
+            long start = System.nanoTime();
+
+            totalWaitNanos.add(start - queued);
+            maxWaitNanos.accumulateAndGet(start - queued, Math::max);
+
+            try
+            {
+                command.run();
+            }
+            finally
+            {
+                if (sharedPermits != null)
+                {
+                    sharedPermits.release();
+                }
+
+                permits.release();
+
+                totalRunNanos.add(System.nanoTime() - start);
+                completed.increment();
+            }
+        });
+    }
+
+    /**
+     * Fetches the amount of operations waiting for a permit
+     *
+     * @return The waiting count
+     */
+    public int getWaitingCount()
+    {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Fetches the amount of permits not held by a running operation
+     *
+     * @return The available permit count
+     */
+    public int getAvailablePermits()
+    {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Fetches the amount of completed operations
+     *
+     * @return The completed count
+     */
+    public long getCompletedCount()
+    {
+        return completed.sum();
+    }
+
+    /**
+     * Fetches the average time operations waited for a permit
+     *
+     * @return The average wait in milliseconds
+     */
+    public double getAverageWaitMillis()
+    {
+        long count = completed.sum();
+
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1_000_000D / count;
+    }
+
+    /**
+     * Fetches the longest time an operation waited for a permit
+     *
+     * @return The maximum wait in milliseconds
+     */
+    public double getMaxWaitMillis()
+    {
+        return maxWaitNanos.get() / 1_000_000D;
+    }
+
+    /**
+     * Fetches the average time operations took to run
+     *
+     * @return The average run time in milliseconds
+     */
+    public double getAverageRunMillis()
+    {
+        long count = completed.sum();
+
+        return count == 0 ? 0 : totalRunNanos.sum() / 1_000_000D / count;
+    }
+
+    /**
+     * Stops accepting operations, letting submitted ones finish
+     */
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    /**
+     * Looks up the virtual thread executor factory method
+     *
+     * @return The method, or null if the runtime predates virtual threads
+     */
+    private static Method findFactory()
+    {
+        try
+        {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException ex)
+        {
+            return null;
+        }
+    }
+}
@@ -33,4 +33,23 @@ public interface Mapping<T>
      * @throws SQLException If an SQL error is encountered
      */
     T fromResults(ResultSet results, String fieldName) throws SQLException;
+
+    /**
+     * Fetches data from a {@link ResultSet} by column index
+     *
+     * The default implementation resolves the column label and
+     * delegates to {@link #fromResults(ResultSet, String)}, mappings
+     * should override it to avoid the per-value label lookup
+     *
+     * @param results The {@link ResultSet} to parse the object from
+     * @param index The index of the column in the results, starting at 1
+     *
+     * @return The mapped data
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    default T fromResults(ResultSet results, int index) throws SQLException
+    {
+        return fromResults(results, results.getMetaData().getColumnLabel(index));
+    }
 }
@@ -1,5 +1,7 @@
 package me.itsmas.sql.mapping;
 
+import com.google.common.primitives.Primitives;
+
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
 import java.sql.PreparedStatement;
@@ -36,12 +38,21 @@ public class Mappings
     /**
      * Fetches an {@link Optional<Mapping>} for a class
      *
+     * Wrapper classes fall back to the mapping of their primitive type
+     *
      * @param clazz The class
      * @return The optional mapping for the class
      */
     public static Optional<Mapping> getMapping(@Nonnull Class<?> clazz)
     {
-        return Optional.ofNullable(MAPPINGS.get(clazz));
+        Mapping<?> mapping = MAPPINGS.get(clazz);
+
+        if (mapping == null && Primitives.isWrapperType(clazz))
+        {
+            mapping = MAPPINGS.get(Primitives.unwrap(clazz));
+        }
+
+        return Optional.ofNullable(mapping);
     }
 
     static
@@ -59,6 +70,12 @@ public class Mappings
             {
                 return results.getString(fieldName);
             }
+
+            @Override
+            public String fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getString(index);
+            }
         });
 
         registerMapping(boolean.class, new Mapping<Boolean>()
@@ -74,6 +91,12 @@ public class Mappings
             {
                 return results.getBoolean(fieldName);
             }
+
+            @Override
+            public Boolean fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getBoolean(index);
+            }
         });
 
         registerMapping(int.class, new Mapping<Integer>()
@@ -89,6 +112,33 @@ public class Mappings
             {
                 return results.getInt(fieldName);
             }
+
+            @Override
+            public Integer fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getInt(index);
+            }
+        });
+
+        registerMapping(long.class, new Mapping<Long>()
+        {
+            @Override
+            public void updateStatement(PreparedStatement statement, Long data, int index) throws SQLException
+            {
+                statement.setLong(index, data);
+            }
+
+            @Override
+            public Long fromResults(ResultSet results, String fieldName) throws SQLException
+            {
+                return results.getLong(fieldName);
+            }
+
+            @Override
+            public Long fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getLong(index);
+            }
         });
 
         registerMapping(double.class, new Mapping<Double>()
@@ -104,6 +154,12 @@ public class Mappings
             {
                 return results.getDouble(fieldName);
             }
+
+            @Override
+            public Double fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getDouble(index);
+            }
         });
 
         registerMapping(float.class, new Mapping<Float>()
@@ -119,6 +175,12 @@ public class Mappings
             {
                 return results.getFloat(fieldName);
             }
+
+            @Override
+            public Float fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getFloat(index);
+            }
         });
 
         registerMapping(BigDecimal.class, new Mapping<BigDecimal>()
@@ -134,6 +196,12 @@ public class Mappings
             {
                 return results.getBigDecimal(fieldName);
             }
+
+            @Override
+            public BigDecimal fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getBigDecimal(index);
+            }
         });
 
         registerMapping(UUID.class, new Mapping<UUID>()
@@ -149,6 +217,12 @@ public class Mappings
             {
                 return UUID.fromString(results.getString(fieldName));
             }
+
+            @Override
+            public UUID fromResults(ResultSet results, int index) throws SQLException
+            {
+                return UUID.fromString(results.getString(index));
+            }
         });
 
         registerMapping(Date.class, new Mapping<Date>()
@@ -164,6 +238,12 @@ public class Mappings
             {
                 return results.getDate(fieldName);
             }
+
+            @Override
+            public Date fromResults(ResultSet results, int index) throws SQLException
+            {
+                return results.getDate(index);
+            }
         });
 
         registerMapping(Locale.class, new Mapping<Locale>()
@@ -179,6 +259,12 @@ public class Mappings
             {
                 return Locale.forLanguageTag(results.getString(fieldName));
             }
+
+            @Override
+            public Locale fromResults(ResultSet results, int index) throws SQLException
+            {
+                return Locale.forLanguageTag(results.getString(index));
+            }
         });
     }
 }
@@ -0,0 +1,114 @@
+package me.itsmas.sql.mapping;
+
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps the rows of a single {@link ResultSet} to objects
+ *
+ * Column labels are resolved to indices once when the mapper
+ * is created, so each row is read purely by column index
+ *
+ * @param <T> The object type being mapped
+ */
+public final class ObjectMapper<T>
+{
+    /**
+     * The metadata of the class being mapped
+     */
+    private final ObjectMetadata<T> metadata;
+
+    /**
+     * The fields present in the results
+     */
+    private final ColumnField[] fields;
+
+    /**
+     * The mappings of the fields
+     */
+    private final Mapping<?>[] mappings;
+
+    /**
+     * The result column indices of the fields
+     */
+    private final int[] indices;
+
+    /**
+     * {@link ObjectMapper} constructor
+     *
+     * Fields without a registered {@link Mapping} or
+     * without a matching result column are skipped
+     *
+     * @param metadata The metadata of the class to map to
+     * @param results The results that will be mapped
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public ObjectMapper(@Nonnull ObjectMetadata<T> metadata, @Nonnull ResultSet results) throws SQLException
+    {
+        this.metadata = metadata;
+
+        ResultSetMetaData resultData = results.getMetaData();
+        Map<String, Integer> labels = new HashMap<>();
+
+        for (int i = 1; i <= resultData.getColumnCount(); i++)
+        {
+            labels.putIfAbsent(resultData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        List<ColumnField> fields = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+
+        for (ColumnField field : metadata.getColumns())
+        {
+            Integer index = labels.get(field.getColumnName().toLowerCase(Locale.ROOT));
+
+            if (index != null && field.getMapping() != null)
+            {
+                fields.add(field);
+                indices.add(index);
+            }
+        }
+
+        this.fields = fields.toArray(new ColumnField[0]);
+        this.mappings = new Mapping<?>[this.fields.length];
+        this.indices = new int[this.fields.length];
+
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            this.mappings[i] = this.fields[i].getMapping();
+            this.indices[i] = indices.get(i);
+        }
+    }
+
+    /**
+     * Maps the current row of the results to a new object
+     *
+     * @param results The results the mapper was created for
+     *
+     * @return The mapped object
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public T map(@Nonnull ResultSet results) throws SQLException
+    {
+        T object = metadata.newInstance();
+
+        for (int i = 0; i < fields.length; i++)
+        {
+            fields[i].set(object, mappings[i].fromResults(results, indices[i]));
+        }
+
+        return object;
+    }
+}
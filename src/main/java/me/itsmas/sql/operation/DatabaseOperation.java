@@ -3,6 +3,7 @@ package me.itsmas.sql.operation;
 import me.itsmas.sql.Database;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Abstraction of a database operation
@@ -19,4 +20,19 @@ public interface DatabaseOperation<T>
      * @return The result of the operation
      */
     T execute(@Nonnull Database database);
+
+    /**
+     * Fetches a key identifying the operation, equal for
+     * operations which are guaranteed the same result
+     *
+     * Concurrent operations with equal identities may share a single
+     * execution, so only read-only operations should have one
+     *
+     * @return The identity, or null if the result cannot be shared
+     */
+    @Nullable
+    default Object getIdentity()
+    {
+        return null;
+    }
 }
@@ -0,0 +1,47 @@
+package me.itsmas.sql.operation;
+
+import me.itsmas.sql.annotation.Version;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Thrown when an update of a versioned object finds the row
+ * missing or already updated to a newer version by another writer
+ *
+ * @see Version
+ */
+public class OptimisticLockException extends RuntimeException
+{
+    /**
+     * The serialization version
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The object which failed to update
+     */
+    private final transient Object object;
+
+    /**
+     * {@link OptimisticLockException} constructor
+     *
+     * @param object The object which failed to update
+     * @param version The version the update expected
+     */
+    public OptimisticLockException(@Nonnull Object object, @Nonnull Object version)
+    {
+        super(String.format("%s was modified concurrently, expected version %s", object.getClass().getSimpleName(), version));
+
+        this.object = object;
+    }
+
+    /**
+     * Fetches the object which failed to update
+     *
+     * @return The object
+     */
+    public Object getObject()
+    {
+        return object;
+    }
+}
@@ -0,0 +1,27 @@
+package me.itsmas.sql.operation;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Handler reading the data it needs from a {@link ResultSet}
+ *
+ * The results are only valid while the handler runs,
+ * they are closed as soon as the handler returns
+ *
+ * @param <R> The type of data the handler produces
+ */
+@FunctionalInterface
+public interface ResultHandler<R>
+{
+    /**
+     * Reads data from query results
+     *
+     * @param results The query results
+     *
+     * @return The data read
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    R handle(ResultSet results) throws SQLException;
+}
@@ -0,0 +1,172 @@
+package me.itsmas.sql.operation.condition;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link Condition} testing the value of a single column
+ */
+final class ColumnCondition extends Condition
+{
+    /**
+     * The column being tested
+     */
+    private final String column;
+
+    /**
+     * The operator used to test the column
+     */
+    private final Operator operator;
+
+    /**
+     * The values the column is tested against
+     */
+    private final Object[] values;
+
+    /**
+     * {@link ColumnCondition} constructor
+     *
+     * @param column The column being tested
+     * @param operator The test operator
+     * @param values The values to test against
+     */
+    ColumnCondition(@Nonnull String column, @Nonnull Operator operator, @Nonnull Object... values)
+    {
+        this.column = column;
+        this.operator = operator;
+        this.values = values;
+    }
+
+    /**
+     * Fetches the column being tested
+     *
+     * @return The column name
+     */
+    String getColumn()
+    {
+        return column;
+    }
+
+    /**
+     * Fetches the operator used to test the column
+     *
+     * @return The operator
+     */
+    Operator getOperator()
+    {
+        return operator;
+    }
+
+    /**
+     * Fetches the values the column is tested against
+     *
+     * @return The values
+     */
+    Object[] getValues()
+    {
+        return values;
+    }
+
+    @Override
+    public void appendSql(StringBuilder builder)
+    {
+        switch (operator)
+        {
+            case BETWEEN:
+                builder.append(column).append(" BETWEEN ? AND ?");
+                break;
+
+            case IN:
+            case NOT_IN:
+                if (values.length == 0)
+                {
+                    builder.append(operator == Operator.IN ? "1=0" : "1=1");
+                    break;
+                }
+
+                builder.append(column).append(operator.sql).append('?');
+
+                for (int i = 1; i < values.length; i++)
+                {
+                    builder.append(",?");
+                }
+
+                builder.append(')');
+                break;
+
+            case IS_NULL:
+            case IS_NOT_NULL:
+                builder.append(column).append(operator.sql);
+                break;
+
+            default:
+                builder.append(column).append(operator.sql).append('?');
+        }
+    }
+
+    @Override
+    public void appendValues(List<Object> values)
+    {
+        Collections.addAll(values, this.values);
+    }
+
+    @Override
+    public boolean isEquality(@Nonnull String column)
+    {
+        return operator == Operator.EQUAL && this.column.equalsIgnoreCase(column);
+    }
+
+    @Override
+    public Object getShape()
+    {
+        return Arrays.asList(column, operator, values.length);
+    }
+
+    @Override
+    String getSortColumn()
+    {
+        return column;
+    }
+
+    @Override
+    int getSortRank()
+    {
+        return operator.ordinal();
+    }
+
+    @Override
+    int getArity()
+    {
+        return values.length;
+    }
+
+    /**
+     * The operators a column can be tested with
+     */
+    enum Operator
+    {
+        EQUAL("="),
+        NOT_EQUAL("<>"),
+        LESS_THAN("<"),
+        LESS_OR_EQUAL("<="),
+        GREATER_THAN(">"),
+        GREATER_OR_EQUAL(">="),
+        BETWEEN(" BETWEEN "),
+        IN(" IN ("),
+        NOT_IN(" NOT IN ("),
+        IS_NULL(" IS NULL"),
+        IS_NOT_NULL(" IS NOT NULL");
+
+        /**
+         * The SQL of the operator
+         */
+        private final String sql;
+
+        Operator(String sql)
+        {
+            this.sql = sql;
+        }
+    }
+}
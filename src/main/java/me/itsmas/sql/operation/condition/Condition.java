@@ -0,0 +1,126 @@
+package me.itsmas.sql.operation.condition;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A predicate in the "WHERE" clause of a statement
+ *
+ * Conditions are created through {@link Conditions}
+ */
+public abstract class Condition
+{
+    /**
+     * The canonical order of conditions in a statement
+     *
+     * Conditions are ordered by their first column, then by their
+     * kind and their arity, and ties are broken by their rendered
+     * SQL and then their values, so the same conditions always produce
+     * the same statement regardless of the order they were added in
+     */
+    public static final Comparator<Condition> CANONICAL_ORDER = Comparator
+        .comparing(Condition::getSortColumn)
+        .thenComparingInt(Condition::getSortRank)
+        .thenComparingInt(Condition::getArity)
+        .thenComparing(Condition::getSortSql)
+        .thenComparing(Condition::getSortValues);
+
+    Condition() {}
+
+    /**
+     * Appends the SQL of the condition to a statement
+     *
+     * @param builder The statement builder
+     */
+    public abstract void appendSql(@Nonnull StringBuilder builder);
+
+    /**
+     * Appends the values of the condition in statement order
+     *
+     * @param values The statement values
+     */
+    public abstract void appendValues(@Nonnull List<Object> values);
+
+    /**
+     * Fetches the shape of the condition
+     *
+     * Conditions with equal shapes produce the same
+     * SQL, regardless of the values they hold
+     *
+     * @return The condition shape
+     */
+    public abstract Object getShape();
+
+    /**
+     * Fetches whether the condition only matches rows
+     * where a column equals a single value
+     *
+     * @param column The column name
+     *
+     * @return If the condition tests the column for equality
+     */
+    public boolean isEquality(@Nonnull String column)
+    {
+        return false;
+    }
+
+    /**
+     * Fetches the column the condition is sorted by
+     *
+     * @see #CANONICAL_ORDER
+     *
+     * @return The sort column
+     */
+    abstract String getSortColumn();
+
+    /**
+     * Fetches the rank of the condition kind
+     *
+     * @see #CANONICAL_ORDER
+     *
+     * @return The sort rank
+     */
+    abstract int getSortRank();
+
+    /**
+     * Fetches the amount of values or nested conditions
+     *
+     * @see #CANONICAL_ORDER
+     *
+     * @return The arity of the condition
+     */
+    abstract int getArity();
+
+    /**
+     * Fetches the rendered SQL of the condition
+     *
+     * @see #CANONICAL_ORDER
+     *
+     * @return The condition SQL
+     */
+    String getSortSql()
+    {
+        StringBuilder builder = new StringBuilder();
+        appendSql(builder);
+
+        return builder.toString();
+    }
+
+    /**
+     * Fetches the values of the condition as a string
+     *
+     * @see #CANONICAL_ORDER
+     *
+     * @return The condition values
+     */
+    String getSortValues()
+    {
+        List<Object> values = new ArrayList<>();
+        appendValues(values);
+
+        return Arrays.deepToString(values.toArray());
+    }
+}
@@ -0,0 +1,210 @@
+package me.itsmas.sql.operation.condition;
+
+import me.itsmas.sql.operation.condition.ColumnCondition.Operator;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Factory methods for {@link Condition} instances
+ */
+public final class Conditions
+{
+    private Conditions() {}
+
+    /**
+     * Tests that a column equals a value
+     *
+     * @param column The column
+     * @param value The value
+     *
+     * @return The condition
+     */
+    public static Condition equal(@Nonnull String column, @Nonnull Object value)
+    {
+        return compare(column, Operator.EQUAL, value);
+    }
+
+    /**
+     * Tests that a column does not equal a value
+     *
+     * @param column The column
+     * @param value The value
+     *
+     * @return The condition
+     */
+    public static Condition notEqual(@Nonnull String column, @Nonnull Object value)
+    {
+        return compare(column, Operator.NOT_EQUAL, value);
+    }
+
+    /**
+     * Tests that a column is less than a value
+     *
+     * @param column The column
+     * @param value The value
+     *
+     * @return The condition
+     */
+    public static Condition lessThan(@Nonnull String column, @Nonnull Object value)
+    {
+        return compare(column, Operator.LESS_THAN, value);
+    }
+
+    /**
+     * Tests that a column is less than or equal to a value
+     *
+     * @param column The column
+     * @param value The value
+     *
+     * @return The condition
+     */
+    public static Condition lessOrEqual(@Nonnull String column, @Nonnull Object value)
+    {
+        return compare(column, Operator.LESS_OR_EQUAL, value);
+    }
+
+    /**
+     * Tests that a column is greater than a value
+     *
+     * @param column The column
+     * @param value The value
+     *
+     * @return The condition
+     */
+    public static Condition greaterThan(@Nonnull String column, @Nonnull Object value)
+    {
+        return compare(column, Operator.GREATER_THAN, value);
+    }
+
+    /**
+     * Tests that a column is greater than or equal to a value
+     *
+     * @param column The column
+     * @param value The value
+     *
+     * @return The condition
+     */
+    public static Condition greaterOrEqual(@Nonnull String column, @Nonnull Object value)
+    {
+        return compare(column, Operator.GREATER_OR_EQUAL, value);
+    }
+
+    /**
+     * Tests that a column lies within an inclusive range
+     *
+     * @param column The column
+     * @param from The lower bound
+     * @param to The upper bound
+     *
+     * @return The condition
+     */
+    public static Condition between(@Nonnull String column, @Nonnull Object from, @Nonnull Object to)
+    {
+        return new ColumnCondition(column, Operator.BETWEEN, checkNotNull(from), checkNotNull(to));
+    }
+
+    /**
+     * Tests that a column equals one of a collection of values
+     *
+     * @param column The column
+     * @param values The values
+     *
+     * @return The condition
+     */
+    public static Condition in(@Nonnull String column, @Nonnull Collection<?> values)
+    {
+        return new ColumnCondition(column, Operator.IN, values.toArray());
+    }
+
+    /**
+     * Tests that a column equals one of a set of values
+     *
+     * @param column The column
+     * @param values The values
+     *
+     * @return The condition
+     */
+    public static Condition in(@Nonnull String column, @Nonnull Object... values)
+    {
+        return in(column, Arrays.asList(values));
+    }
+
+    /**
+     * Tests that a column equals none of a collection of values
+     *
+     * @param column The column
+     * @param values The values
+     *
+     * @return The condition
+     */
+    public static Condition notIn(@Nonnull String column, @Nonnull Collection<?> values)
+    {
+        return new ColumnCondition(column, Operator.NOT_IN, values.toArray());
+    }
+
+    /**
+     * Tests that a column is null
+     *
+     * @param column The column
+     *
+     * @return The condition
+     */
+    public static Condition isNull(@Nonnull String column)
+    {
+        return new ColumnCondition(column, Operator.IS_NULL);
+    }
+
+    /**
+     * Tests that a column is not null
+     *
+     * @param column The column
+     *
+     * @return The condition
+     */
+    public static Condition isNotNull(@Nonnull String column)
+    {
+        return new ColumnCondition(column, Operator.IS_NOT_NULL);
+    }
+
+    /**
+     * Tests that all of a set of conditions hold
+     *
+     * @param conditions The conditions
+     *
+     * @return The condition group
+     */
+    public static Condition and(@Nonnull Condition... conditions)
+    {
+        return new GroupCondition(false, Arrays.asList(conditions));
+    }
+
+    /**
+     * Tests that any of a set of conditions hold
+     *
+     * @param conditions The conditions
+     *
+     * @return The condition group
+     */
+    public static Condition or(@Nonnull Condition... conditions)
+    {
+        return new GroupCondition(true, Arrays.asList(conditions));
+    }
+
+    /**
+     * Creates a comparison between a column and a single value
+     *
+     * @param column The column
+     * @param operator The comparison operator
+     * @param value The value
+     *
+     * @return The condition
+     */
+    private static Condition compare(String column, Operator operator, Object value)
+    {
+        return new ColumnCondition(column, operator, checkNotNull(value, "Condition value is null, use isNull instead"));
+    }
+}
@@ -0,0 +1,100 @@
+package me.itsmas.sql.operation.condition;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Condition} joining nested conditions with "AND" or "OR"
+ */
+final class GroupCondition extends Condition
+{
+    /**
+     * Whether the nested conditions are joined with "OR"
+     */
+    private final boolean or;
+
+    /**
+     * The nested conditions in canonical order
+     */
+    private final List<Condition> conditions;
+
+    /**
+     * {@link GroupCondition} constructor
+     *
+     * @param or Whether to join the conditions with "OR" rather than "AND"
+     * @param conditions The nested conditions
+     */
+    GroupCondition(boolean or, @Nonnull List<Condition> conditions)
+    {
+        this.or = or;
+        this.conditions = new ArrayList<>(conditions);
+
+        this.conditions.sort(CANONICAL_ORDER);
+    }
+
+    @Override
+    public void appendSql(StringBuilder builder)
+    {
+        if (conditions.isEmpty())
+        {
+            builder.append(or ? "1=0" : "1=1");
+            return;
+        }
+
+        builder.append('(');
+
+        for (int i = 0; i < conditions.size(); i++)
+        {
+            if (i > 0)
+            {
+                builder.append(or ? " OR " : " AND ");
+            }
+
+            conditions.get(i).appendSql(builder);
+        }
+
+        builder.append(')');
+    }
+
+    @Override
+    public void appendValues(List<Object> values)
+    {
+        for (Condition condition : conditions)
+        {
+            condition.appendValues(values);
+        }
+    }
+
+    @Override
+    public Object getShape()
+    {
+        List<Object> shape = new ArrayList<>(conditions.size() + 1);
+        shape.add(or);
+
+        for (Condition condition : conditions)
+        {
+            shape.add(condition.getShape());
+        }
+
+        return shape;
+    }
+
+    @Override
+    String getSortColumn()
+    {
+        return conditions.isEmpty() ? "" : conditions.get(0).getSortColumn();
+    }
+
+    @Override
+    int getSortRank()
+    {
+        return ColumnCondition.Operator.values().length + (or ? 1 : 0);
+    }
+
+    @Override
+    int getArity()
+    {
+        return conditions.size();
+    }
+}
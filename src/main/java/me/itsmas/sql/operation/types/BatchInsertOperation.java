@@ -0,0 +1,260 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.Logs;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for inserting many objects of the same class
+ *
+ * Objects are sent as multi-row "VALUES" statements of up to
+ * {@link #chunkSize(int)} rows each, all on one connection and
+ * committed together once every chunk has been inserted
+ */
+public class BatchInsertOperation implements DatabaseOperation<Void>
+{
+    /**
+     * The default amount of rows per statement
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * The objects to insert
+     */
+    private final List<Object> objects;
+
+    /**
+     * The compiled metadata of the object class, or null if there are no objects
+     */
+    final ObjectMetadata<?> metadata;
+
+    /**
+     * The maximum amount of rows per statement
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * {@link BatchInsertOperation} constructor
+     *
+     * @param objects The objects to insert, all of the same class
+     */
+    public BatchInsertOperation(@Nonnull Collection<?> objects)
+    {
+        this.objects = new ArrayList<>(objects);
+
+        if (this.objects.isEmpty())
+        {
+            this.metadata = null;
+            return;
+        }
+
+        Class<?> clazz = this.objects.get(0).getClass();
+
+        for (Object object : this.objects)
+        {
+            checkArgument(object.getClass() == clazz, "Batched objects must all be of the same class");
+        }
+
+        this.metadata = ClassTools.getMetadata(clazz);
+    }
+
+    /**
+     * Sets the maximum amount of rows sent per statement
+     *
+     * @param chunkSize The chunk size
+     *
+     * @return The operation instance
+     */
+    public BatchInsertOperation chunkSize(int chunkSize)
+    {
+        checkArgument(chunkSize > 0, "Chunk size must be positive");
+
+        this.chunkSize = chunkSize;
+
+        return this;
+    }
+
+    @Override
+    public Void execute(Database database)
+    {
+        if (objects.isEmpty())
+        {
+            return null;
+        }
+
+        try (Connection connection = database.fetchConnection(metadata.getType()))
+        {
+            connection.setAutoCommit(false);
+
+            try
+            {
+                for (int from = 0; from < objects.size(); from += chunkSize)
+                {
+                    insertChunk(connection, objects.subList(from, Math.min(from + chunkSize, objects.size())));
+                }
+
+                connection.commit();
+            }
+            catch (SQLException | RuntimeException ex)
+            {
+                connection.rollback();
+                throw ex;
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error executing batch insert statement");
+            throw new RuntimeException(ex);
+        }
+
+        recordWritten(database, objects);
+
+        return null;
+    }
+
+    /**
+     * Records the inserted objects in the entity cache, key filter
+     * and dirty tracking of the database once the insert commits
+     *
+     * @param database The database instance
+     * @param objects The inserted objects
+     */
+    void recordWritten(Database database, List<Object> objects)
+    {
+        database.getSnapshotStore().ifPresent(store ->
+        {
+            List<Object[]> values = new ArrayList<>(objects.size());
+            objects.forEach(object -> values.add(store.capture(object)));
+
+            database.afterCommit(() ->
+            {
+                for (int i = 0; i < objects.size(); i++)
+                {
+                    store.recordValues(objects.get(i), values.get(i));
+                }
+            });
+        });
+
+        database.afterCommit(() ->
+        {
+            database.getEntityCache(metadata.getType()).ifPresent(cache -> objects.forEach(cache::put));
+            database.getKeyFilter(metadata.getType()).ifPresent(filter -> objects.forEach(filter::putObject));
+        });
+    }
+
+    /**
+     * Inserts a chunk of objects in a single statement
+     *
+     * @param connection The database connection
+     * @param chunk The objects in the chunk
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    private void insertChunk(Connection connection, List<Object> chunk) throws SQLException
+    {
+        List<ColumnField> fields = metadata.getInsertColumns();
+
+        try (PreparedStatement statement = connection.prepareStatement(constructStatement(chunk.size())))
+        {
+            int index = 1;
+
+            for (Object object : chunk)
+            {
+                for (ColumnField field : fields)
+                {
+                    field.updateStatement(statement, index++, object);
+                }
+            }
+
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Fetches the cached statement for inserting a chunk of rows
+     *
+     * @see StatementCache
+     *
+     * @param rows The amount of rows in the chunk
+     *
+     * @return The statement
+     */
+    private String constructStatement(int rows)
+    {
+        StatementCache.Key key = new StatementCache.Key(metadata.getType(), getStatementType(), Collections.singletonList(rows));
+
+        return StatementCache.get(key, () -> buildStatement(rows));
+    }
+
+    /**
+     * Builds a statement for inserting a chunk of rows
+     *
+     * @param rows The amount of rows in the chunk
+     *
+     * @return The statement
+     */
+    private String buildStatement(int rows)
+    {
+        List<ColumnField> fields = metadata.getInsertColumns();
+        StringBuilder builder = new StringBuilder("INSERT INTO ").append(metadata.getTable()).append(" (");
+
+        for (int i = 0; i < fields.size(); i++)
+        {
+            builder.append(i == 0 ? "" : ",").append(fields.get(i).getColumnName());
+        }
+
+        builder.append(") VALUES ");
+
+        for (int row = 0; row < rows; row++)
+        {
+            builder.append(row == 0 ? "(" : ",(");
+
+            for (int i = 0; i < fields.size(); i++)
+            {
+                builder.append(i == 0 ? "?" : ",?");
+            }
+
+            builder.append(')');
+        }
+
+        appendConflictClause(builder);
+
+        return builder.append(';').toString();
+    }
+
+    /**
+     * Fetches the type of the generated statements
+     *
+     * @return The statement type
+     */
+    StatementCache.Type getStatementType()
+    {
+        return StatementCache.Type.BATCH_INSERT;
+    }
+
+    /**
+     * Appends the clause handling rows which
+     * conflict with an existing unique key, if any
+     *
+     * @param builder The statement builder
+     */
+    void appendConflictClause(StringBuilder builder) {}
+}
@@ -0,0 +1,89 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.util.ColumnField;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for updating several fields
+ * of many objects of the same class by their unique key
+ *
+ * Rows updating the same set of fields share one statement and are
+ * sent as a JDBC batch, all on one connection in a single transaction
+ */
+public class BatchUpdateOperation extends RowUpdateOperation
+{
+    /**
+     * {@link BatchUpdateOperation} constructor
+     *
+     * @param clazz The class of the objects being updated
+     */
+    public BatchUpdateOperation(@Nonnull Class<?> clazz)
+    {
+        super(clazz);
+    }
+
+    /**
+     * Adds an update of the given fields of an object,
+     * reading the values from the object itself
+     *
+     * @param object The object
+     * @param fieldNames The names of the fields to update
+     *
+     * @return The operation instance
+     */
+    public BatchUpdateOperation add(@Nonnull Object object, @Nonnull Collection<String> fieldNames)
+    {
+        checkArgument(object.getClass() == metadata.getType(), "Object is not of the batch class");
+
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        for (String fieldName : fieldNames)
+        {
+            values.put(fieldName, getColumn(fieldName).get(object));
+        }
+
+        return add(metadata.getUniqueColumn().get(object), values);
+    }
+
+    /**
+     * Adds an update of the row with the given unique key
+     *
+     * @param uniqueKey The unique key of the row
+     * @param values The values to set, by field name
+     *
+     * @return The operation instance
+     */
+    public BatchUpdateOperation add(@Nonnull Object uniqueKey, @Nonnull Map<String, ?> values)
+    {
+        addRow(uniqueKey, values);
+
+        return this;
+    }
+
+    @Override
+    StatementCache.Type getStatementType()
+    {
+        return StatementCache.Type.BATCH_UPDATE;
+    }
+
+    @Override
+    void appendAssignment(StringBuilder builder, ColumnField field)
+    {
+        builder.append(field.getColumnName()).append("=?");
+    }
+
+    @Override
+    void setValue(PreparedStatement statement, int index, ColumnField field, Object value) throws SQLException
+    {
+        field.setParameter(statement, index, value);
+    }
+}
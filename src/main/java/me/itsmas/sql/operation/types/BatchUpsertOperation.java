@@ -0,0 +1,73 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for inserting many objects of the same
+ * class, updating the existing rows of objects whose unique key exists
+ *
+ * @see UpsertOperation
+ */
+public class BatchUpsertOperation extends BatchInsertOperation
+{
+    /**
+     * {@link BatchUpsertOperation} constructor
+     *
+     * @param objects The objects to upsert, all of the same class
+     */
+    public BatchUpsertOperation(@Nonnull Collection<?> objects)
+    {
+        super(objects);
+
+        checkArgument(metadata == null || metadata.hasUniqueColumn(), "Class does not contain a unique field");
+        checkArgument(metadata == null || !metadata.hasVersionColumn(), "Versioned classes cannot be upserted");
+    }
+
+    @Override
+    public BatchUpsertOperation chunkSize(int chunkSize)
+    {
+        super.chunkSize(chunkSize);
+
+        return this;
+    }
+
+    /**
+     * Evicts the upserted objects from the entity cache and dirty
+     * tracking, as updated rows keep their database values for
+     * columns outside the insert fields. Snapshots are dropped at
+     * once, as a rolled back upsert leaves them stale either way
+     *
+     * @param database The database instance
+     * @param objects The upserted objects
+     */
+    @Override
+    void recordWritten(Database database, List<Object> objects)
+    {
+        database.getSnapshotStore().ifPresent(store -> objects.forEach(store::forget));
+
+        database.afterCommit(() ->
+        {
+            database.getEntityCache(metadata.getType()).ifPresent(cache -> objects.forEach(object -> cache.invalidate(metadata.getUniqueColumn().get(object))));
+            database.getKeyFilter(metadata.getType()).ifPresent(filter -> objects.forEach(filter::putObject));
+        });
+    }
+
+    @Override
+    StatementCache.Type getStatementType()
+    {
+        return StatementCache.Type.BATCH_UPSERT;
+    }
+
+    @Override
+    void appendConflictClause(StringBuilder builder)
+    {
+        UpsertOperation.appendUpdateClause(builder, metadata);
+    }
+}
@@ -0,0 +1,263 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.cache.EntityCache;
+import me.itsmas.sql.cache.KeyFilter;
+import me.itsmas.sql.cache.SnapshotStore;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.condition.Conditions;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for fetching objects by a set of unique keys
+ *
+ * The keys are fetched in chunks with an "IN" condition, and keys
+ * without a row are left out of the resulting map. String keys are
+ * also matched to a row differing only in case, which the query
+ * returns under MySQL's default case-insensitive collations
+ *
+ * @see ColumnField#matchRows
+ *
+ * @param <K> The unique key type
+ * @param <T> The object type being fetched
+ */
+public class BulkFetchOperation<K, T> implements DatabaseOperation<Map<K, T>>
+{
+    /**
+     * The default maximum amount of keys per query
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    /**
+     * The class to map the resulting objects to
+     */
+    private final Class<T> clazz;
+
+    /**
+     * The compiled metadata of the class
+     */
+    private final ObjectMetadata<T> metadata;
+
+    /**
+     * The distinct unique keys to fetch
+     */
+    private final List<K> keys;
+
+    /**
+     * The maximum amount of keys per query
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Whether chunks are fetched concurrently
+     */
+    private boolean parallel;
+
+    /**
+     * {@link BulkFetchOperation} constructor
+     *
+     * @param clazz The class to map the resulting objects to
+     * @param keys The unique keys to fetch
+     */
+    public BulkFetchOperation(@Nonnull Class<T> clazz, @Nonnull Collection<K> keys)
+    {
+        this.clazz = clazz;
+        this.metadata = ClassTools.getMetadata(clazz);
+        this.keys = new ArrayList<>(new LinkedHashSet<>(keys));
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+    }
+
+    /**
+     * Sets the maximum amount of keys fetched per query
+     *
+     * @param chunkSize The chunk size
+     *
+     * @return The operation instance
+     */
+    public BulkFetchOperation<K, T> chunkSize(int chunkSize)
+    {
+        checkArgument(chunkSize > 0, "Chunk size must be positive");
+
+        this.chunkSize = chunkSize;
+
+        return this;
+    }
+
+    /**
+     * Sets whether chunks are fetched concurrently on separate
+     * pooled connections through the database's async executor
+     *
+     * The calling thread fetches every chunk no executor thread has
+     * started yet, so the fetch completes even when called from a
+     * busy executor. Chunks are fetched one by one in a transaction
+     *
+     * @param parallel Whether to fetch chunks concurrently
+     *
+     * @return The operation instance
+     */
+    public BulkFetchOperation<K, T> parallel(boolean parallel)
+    {
+        this.parallel = parallel;
+
+        return this;
+    }
+
+    @Override
+    public Map<K, T> execute(Database database)
+    {
+        Map<K, T> results = new LinkedHashMap<>();
+        List<K> remaining = new ArrayList<>(keys.size());
+
+        boolean inTransaction = database.isInTransaction();
+
+        Optional<EntityCache<T>> cache = inTransaction ? Optional.empty() : database.getEntityCache(clazz);
+        Optional<KeyFilter> filter = inTransaction ? Optional.empty() : database.getKeyFilter(clazz);
+
+        ColumnField uniqueField = metadata.getUniqueColumn();
+        Map<K, Object> fieldKeys = new HashMap<>();
+
+        for (K key : keys)
+        {
+            Object fieldKey = uniqueField.toFieldType(key);
+            Optional<T> cached = cache.flatMap(entityCache -> entityCache.get(fieldKey));
+
+            fieldKeys.put(key, fieldKey);
+
+            if (cached.isPresent())
+            {
+                results.put(key, cached.get());
+            }
+            else if (!filter.isPresent() || !filter.get().isDefinitelyAbsent(fieldKey))
+            {
+                remaining.add(key);
+            }
+        }
+
+        Optional<SnapshotStore> snapshots = database.getSnapshotStore();
+        List<T> fetched = fetch(database, remaining);
+        Optional<EntityCache<T>> fill = cache.filter(ignored -> database.isCacheableRead(clazz));
+
+        List<Object> remainingFieldKeys = new ArrayList<>(remaining.size());
+        remaining.forEach(key -> remainingFieldKeys.add(fieldKeys.get(key)));
+
+        Map<Object, T> found = uniqueField.matchRows(remainingFieldKeys, fetched);
+
+        for (T object : fetched)
+        {
+            fill.ifPresent(entityCache -> entityCache.put(object));
+            snapshots.ifPresent(store ->
+            {
+                Object[] values = store.capture(object);
+                database.afterCommit(() -> store.recordValues(object, values));
+            });
+        }
+
+        for (K key : remaining)
+        {
+            T object = found.get(fieldKeys.get(key));
+
+            if (object != null)
+            {
+                results.put(key, object);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Fetches the rows of the given keys chunk by chunk
+     *
+     * @param database The database
+     * @param keys The keys to fetch
+     *
+     * @return The fetched objects
+     */
+    private List<T> fetch(Database database, List<K> keys)
+    {
+        List<T> objects = new ArrayList<>(keys.size());
+
+        if (!parallel || database.isInTransaction())
+        {
+            for (int from = 0; from < keys.size(); from += chunkSize)
+            {
+                objects.addAll(database.executeSync(createChunk(keys, from)));
+            }
+
+            return objects;
+        }
+
+        List<MultiFetchOperation<T>> chunks = new ArrayList<>();
+        List<AtomicBoolean> claims = new ArrayList<>();
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+
+        for (int from = 0; from < keys.size(); from += chunkSize)
+        {
+            MultiFetchOperation<T> chunk = createChunk(keys, from);
+            AtomicBoolean claim = new AtomicBoolean();
+
+            chunks.add(chunk);
+            claims.add(claim);
+            futures.add(database.executeAsync(worker -> claim.compareAndSet(false, true) ? chunk.execute(worker) : null));
+        }
+
+        for (int i = 0; i < chunks.size(); i++)
+        {
+            if (claims.get(i).compareAndSet(false, true))
+            {
+                objects.addAll(database.executeSync(chunks.get(i)));
+            }
+            else
+            {
+                objects.addAll(futures.get(i).join());
+            }
+        }
+
+        return objects;
+    }
+
+    /**
+     * Creates the operation fetching one chunk of keys
+     *
+     * @param keys The keys to fetch
+     * @param from The index of the first key in the chunk
+     *
+     * @return The chunk operation
+     */
+    private MultiFetchOperation<T> createChunk(List<K> keys, int from)
+    {
+        ColumnField uniqueField = metadata.getUniqueColumn();
+        List<Object> chunk = new ArrayList<>();
+
+        for (K key : keys.subList(from, Math.min(from + chunkSize, keys.size())))
+        {
+            chunk.add(uniqueField.toFieldType(key));
+        }
+
+        return new MultiFetchOperation<>(clazz).where(Conditions.in(uniqueField.getColumnName(), chunk));
+    }
+
+    @Override
+    public Object getIdentity()
+    {
+        return Arrays.asList(getClass(), clazz, keys);
+    }
+}
@@ -1,11 +1,15 @@
 package me.itsmas.sql.operation.types;
 
 import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.condition.Condition;
+import me.itsmas.sql.operation.condition.Conditions;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * {@link DatabaseOperation} type where a "WHERE" clause is required
@@ -13,14 +17,30 @@ import java.util.stream.Collectors;
 abstract class ConditionOperation<T> implements DatabaseOperation<T>
 {
     /**
-     * The operation conditions
+     * The operation conditions in canonical order
+     *
+     * @see Condition#CANONICAL_ORDER
+     */
+    final List<Condition> conditions = new ArrayList<>();
+
+    /**
+     * The columns to order results by
+     */
+    private final List<Ordering> orderings = new ArrayList<>();
+
+    /**
+     * The maximum amount of rows affected, or -1 for no limit
      */
-    final Map<String, Object> conditions = new HashMap<>();
+    int limit = -1;
 
     ConditionOperation() {}
 
     /**
-     * Adds a condition to the query
+     * Adds an equality condition to the query, replacing
+     * an earlier equality condition on the same column
+     *
+     * Conditions added through {@link #where(Condition)}
+     * are never replaced and are combined with "AND"
      *
      * @param column The column to check
      * @param value The value to test for
@@ -29,14 +49,131 @@ abstract class ConditionOperation<T> implements DatabaseOperation<T>
      */
     public ConditionOperation<T> where(@Nonnull String column, @Nonnull Object value)
     {
-        conditions.put(column, value);
+        conditions.removeIf(condition -> condition.isEquality(column));
+
+        return where(Conditions.equal(column, value));
+    }
+
+    /**
+     * Adds a condition to the query
+     *
+     * @see Conditions
+     *
+     * @param condition The condition
+     *
+     * @return The operation instance
+     */
+    public ConditionOperation<T> where(@Nonnull Condition condition)
+    {
+        int index = conditions.size();
+
+        while (index > 0 && Condition.CANONICAL_ORDER.compare(conditions.get(index - 1), condition) > 0)
+        {
+            index--;
+        }
+
+        conditions.add(index, condition);
 
         return this;
     }
 
+    /**
+     * Orders the query results by a column ascending
+     *
+     * @param column The column
+     *
+     * @return The operation instance
+     */
+    public ConditionOperation<T> orderBy(@Nonnull String column)
+    {
+        return orderBy(column, false);
+    }
+
+    /**
+     * Orders the query results by a column
+     *
+     * @param column The column
+     * @param descending Whether to order the column descending
+     *
+     * @return The operation instance
+     */
+    public ConditionOperation<T> orderBy(@Nonnull String column, boolean descending)
+    {
+        orderings.add(new Ordering(column, descending));
+
+        return this;
+    }
+
+    /**
+     * Limits the amount of rows the query affects
+     *
+     * @param limit The maximum amount of rows
+     *
+     * @return The operation instance
+     */
+    public ConditionOperation<T> limit(int limit)
+    {
+        checkArgument(limit >= 0, "Limit cannot be negative");
+
+        this.limit = limit;
+
+        return this;
+    }
+
+    /**
+     * Fetches whether the operation has no
+     * conditions, ordering or limit applied
+     *
+     * @return If the operation is unconditional
+     */
+    boolean isUnconditional()
+    {
+        return conditions.isEmpty() && orderings.isEmpty() && limit < 0;
+    }
+
+    /**
+     * Fetches the shape of the conditions, ordering
+     * and limit, used to key cached statements
+     *
+     * @see StatementCache
+     *
+     * @return The statement shape
+     */
+    List<Object> getConditionShape()
+    {
+        List<Object> shape = new ArrayList<>(conditions.size() + 2);
+
+        for (Condition condition : conditions)
+        {
+            shape.add(condition.getShape());
+        }
+
+        shape.add(new ArrayList<>(orderings));
+        shape.add(limit);
+
+        return shape;
+    }
+
+    /**
+     * Fetches the condition values in statement order
+     *
+     * @return The values
+     */
+    List<Object> getConditionValues()
+    {
+        List<Object> values = new ArrayList<>();
+
+        for (Condition condition : conditions)
+        {
+            condition.appendValues(values);
+        }
+
+        return values;
+    }
+
     /**
      * Creates the string of conditions
-     * based on the conditions map
+     * based on the conditions list
      *
      * @see #conditions
      *
@@ -44,9 +181,98 @@ abstract class ConditionOperation<T> implements DatabaseOperation<T>
      */
     String getConditionString()
     {
-        return conditions.entrySet().stream()
-            .map(entry -> entry.getKey() + "=?")
-            .collect(Collectors.joining(" AND ")
-        );
+        StringBuilder builder = new StringBuilder();
+
+        for (Condition condition : conditions)
+        {
+            if (builder.length() > 0)
+            {
+                builder.append(" AND ");
+            }
+
+            condition.appendSql(builder);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends the "WHERE" clause of the statement, if any
+     *
+     * @param builder The statement builder
+     */
+    void appendWhere(StringBuilder builder)
+    {
+        String conditionString = getConditionString();
+
+        if (!conditionString.isEmpty())
+        {
+            builder.append(" WHERE ").append(conditionString);
+        }
+    }
+
+    /**
+     * Appends the "ORDER BY" and "LIMIT" clauses of the statement, if any
+     *
+     * @param builder The statement builder
+     */
+    void appendOrderAndLimit(StringBuilder builder)
+    {
+        for (int i = 0; i < orderings.size(); i++)
+        {
+            Ordering ordering = orderings.get(i);
+
+            builder.append(i == 0 ? " ORDER BY " : ",").append(ordering.column);
+
+            if (ordering.descending)
+            {
+                builder.append(" DESC");
+            }
+        }
+
+        if (limit >= 0)
+        {
+            builder.append(" LIMIT ").append(limit);
+        }
+    }
+
+    /**
+     * A column to order results by
+     */
+    private static final class Ordering
+    {
+        /**
+         * The column name
+         */
+        private final String column;
+
+        /**
+         * Whether the column is ordered descending
+         */
+        private final boolean descending;
+
+        private Ordering(String column, boolean descending)
+        {
+            this.column = column;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof Ordering))
+            {
+                return false;
+            }
+
+            Ordering ordering = (Ordering) object;
+            return column.equals(ordering.column) && descending == ordering.descending;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(column, descending);
+        }
     }
 }
@@ -0,0 +1,181 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.condition.Condition;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link DatabaseOperation} type for fetching objects mapped from table rows
+ *
+ * @param <T> The object type being fetched
+ * @param <R> The operation result type
+ */
+abstract class FetchOperation<T, R> extends ConditionOperation<R>
+{
+    /**
+     * The fetch size which makes MySQL stream rows one at a time
+     */
+    static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * The class to map the resulting objects to
+     */
+    final Class<T> clazz;
+
+    /**
+     * The compiled metadata of the class
+     */
+    final ObjectMetadata<T> metadata;
+
+    /**
+     * The driver fetch size hint, or 0 for the driver default
+     */
+    int fetchSize;
+
+    /**
+     * {@link FetchOperation} constructor
+     *
+     * @param clazz The class to map the resulting objects to
+     */
+    FetchOperation(@Nonnull Class<T> clazz)
+    {
+        this.clazz = clazz;
+        this.metadata = ClassTools.getMetadata(clazz);
+    }
+
+    /**
+     * Fetches the class being fetched
+     *
+     * @return The object class
+     */
+    public Class<T> getType()
+    {
+        return clazz;
+    }
+
+    /**
+     * Prepares the fetch statement as a forward-only, read-only cursor
+     *
+     * @param connection A database connection
+     *
+     * @return The {@link PreparedStatement}
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    PreparedStatement prepareStatement(Connection connection) throws SQLException
+    {
+        return prepareStatement(connection, fetchSize);
+    }
+
+    /**
+     * Prepares the fetch statement with the given fetch size
+     *
+     * @param connection A database connection
+     * @param fetchSize The fetch size, or 0 for the driver default
+     *
+     * @return The {@link PreparedStatement}
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    PreparedStatement prepareStatement(Connection connection, int fetchSize) throws SQLException
+    {
+        PreparedStatement statement = connection.prepareStatement(constructStatement(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+        try
+        {
+            StatementOperation.setParameters(statement, getConditionValues().toArray());
+
+            if (fetchSize != 0)
+            {
+                statement.setFetchSize(fetchSize);
+            }
+
+            return statement;
+        }
+        catch (SQLException | RuntimeException ex)
+        {
+            statement.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Fetches the identity of the query, made of the operation
+     * type, the class, the condition shape and the values
+     *
+     * @return The query identity
+     */
+    List<Object> getQueryIdentity()
+    {
+        return Arrays.asList(getClass(), clazz, getConditionShape(), getConditionValues());
+    }
+
+    /**
+     * Fetches the unique key the operation looks up, if its only
+     * condition is the unique column equalling a single value
+     *
+     * @return The unique key, or null if the operation is not a unique key lookup
+     */
+    @Nullable
+    Object getUniqueKeyLookup()
+    {
+        if (conditions.size() != 1 || !metadata.hasUniqueColumn())
+        {
+            return null;
+        }
+
+        Condition condition = conditions.get(0);
+
+        if (!condition.isEquality(metadata.getUniqueColumn().getColumnName()))
+        {
+            return null;
+        }
+
+        List<Object> values = new ArrayList<>(1);
+        condition.appendValues(values);
+
+        return values.get(0);
+    }
+
+    /**
+     * Fetches the cached SQL statement for fetching the objects
+     *
+     * @see StatementCache
+     *
+     * @return The statement
+     */
+    String constructStatement()
+    {
+        StatementCache.Key key = new StatementCache.Key(clazz, StatementCache.Type.FETCH, getConditionShape());
+
+        return StatementCache.get(key, this::buildStatement);
+    }
+
+    /**
+     * Builds an SQL statement for fetching the objects
+     *
+     * @see #conditions
+     *
+     * @return The statement
+     */
+    private String buildStatement()
+    {
+        StringBuilder builder = new StringBuilder("SELECT * FROM ").append(metadata.getTable());
+
+        appendWhere(builder);
+        appendOrderAndLimit(builder);
+
+        return builder.append(';').toString();
+    }
+}
@@ -0,0 +1,80 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.ResultHandler;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * {@link DatabaseOperation} type for querying data through a {@link ResultHandler}
+ *
+ * Unlike {@link RawFetchOperation}, the {@link ResultSet} never escapes
+ * the operation, its resources are always closed and the connection
+ * returned to the pool once the handler returns or throws
+ */
+public class HandledFetchOperation<R> extends StatementOperation<R>
+{
+    /**
+     * The handler reading the results
+     */
+    private final ResultHandler<R> handler;
+
+    /**
+     * Whether to query the primary even when replicas are configured
+     */
+    private boolean fromPrimary;
+
+    /**
+     * {@link HandledFetchOperation} constructor
+     *
+     * @param statement The SQL statement
+     * @param handler The handler reading the results
+     * @param data The statement data
+     */
+    public HandledFetchOperation(@Nonnull String statement, @Nonnull ResultHandler<R> handler, Object... data)
+    {
+        super(statement, data);
+
+        this.handler = handler;
+    }
+
+    /**
+     * Queries the primary instead of the replicas, for
+     * reads which must see every committed write
+     *
+     * @see Database#fetchPrimaryConnection()
+     *
+     * @return The operation instance
+     */
+    public HandledFetchOperation<R> fromPrimary()
+    {
+        this.fromPrimary = true;
+
+        return this;
+    }
+
+    @Override
+    public R execute(Database database)
+    {
+        try
+        (
+            Connection connection = fromPrimary ? database.fetchPrimaryConnection() : database.fetchReadConnection();
+            PreparedStatement statement = prepareStatement(connection);
+            ResultSet results = statement.executeQuery()
+        )
+        {
+            return handler.handle(results);
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error executing database query");
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.mapping.Mapping;
+import me.itsmas.sql.mapping.Mappings;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link DatabaseOperation} type for atomically incrementing
+ * numeric columns of rows by their unique key
+ *
+ * Columns are updated in the database with "col=col+?", so concurrent
+ * increments never overwrite each other, the in-memory field values
+ * of the objects are not changed
+ */
+public class IncrementOperation extends RowUpdateOperation
+{
+    /**
+     * {@link IncrementOperation} constructor for
+     * incrementing a single field of an object
+     *
+     * @param object The object
+     * @param fieldName The field to increment
+     * @param delta The amount to add, may be negative
+     */
+    public IncrementOperation(@Nonnull Object object, @Nonnull String fieldName, @Nonnull Number delta)
+    {
+        this(object.getClass());
+
+        add(ClassTools.getMetadata(object.getClass()).getUniqueColumn().get(object), Collections.singletonMap(fieldName, delta));
+    }
+
+    /**
+     * {@link IncrementOperation} constructor
+     *
+     * @param clazz The class of the rows being incremented
+     */
+    public IncrementOperation(@Nonnull Class<?> clazz)
+    {
+        super(clazz);
+    }
+
+    /**
+     * Adds increments of the row with the given unique key
+     *
+     * @param uniqueKey The unique key of the row
+     * @param deltas The amounts to add, by field name
+     *
+     * @return The operation instance
+     */
+    public IncrementOperation add(@Nonnull Object uniqueKey, @Nonnull Map<String, ? extends Number> deltas)
+    {
+        addRow(uniqueKey, deltas);
+
+        return this;
+    }
+
+    /**
+     * Fetches the amounts added to each row, by unique key and field name
+     *
+     * @return The deltas
+     */
+    public Map<Object, Map<String, Number>> getDeltas()
+    {
+        Map<Object, Map<String, Number>> deltas = new LinkedHashMap<>();
+
+        getRows().forEach((uniqueKey, values) ->
+        {
+            Map<String, Number> rowDeltas = new LinkedHashMap<>();
+            values.forEach((fieldName, delta) -> rowDeltas.put(fieldName, (Number) delta));
+
+            deltas.put(uniqueKey, rowDeltas);
+        });
+
+        return deltas;
+    }
+
+    @Override
+    StatementCache.Type getStatementType()
+    {
+        return StatementCache.Type.INCREMENT;
+    }
+
+    @Override
+    void appendAssignment(StringBuilder builder, ColumnField field)
+    {
+        builder.append(field.getColumnName()).append('=').append(field.getColumnName()).append("+?");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void setValue(PreparedStatement statement, int index, ColumnField field, Object value) throws SQLException
+    {
+        Mapping<Object> mapping = (Mapping<Object>) Mappings.getMapping(value.getClass()).orElse(null);
+
+        if (mapping != null)
+        {
+            mapping.updateStatement(statement, value, index);
+        }
+        else
+        {
+            Logs.severe("No mapping found for class %s", value.getClass().getCanonicalName());
+        }
+    }
+}
@@ -3,9 +3,10 @@ package me.itsmas.sql.operation.types;
 import me.itsmas.sql.Database;
 import me.itsmas.sql.operation.DatabaseOperation;
 import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
 
 import javax.annotation.Nonnull;
-import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,10 +22,15 @@ public class InsertOperation implements DatabaseOperation<Void>
      */
     private final Object object;
 
+    /**
+     * The compiled metadata of the object class
+     */
+    private final ObjectMetadata<?> metadata;
+
     /**
      * The fields being inserted
      */
-    private final List<Field> fields;
+    private final List<ColumnField> fields;
 
     /**
      * {@link InsertOperation} constructor
@@ -35,32 +41,69 @@ public class InsertOperation implements DatabaseOperation<Void>
     {
         this.object = object;
 
-        this.fields = ClassTools.getInsertFields(object);
+        this.metadata = ClassTools.getMetadata(object.getClass());
+        this.fields = metadata.getInsertColumns();
+    }
+
+    /**
+     * Fetches the object being inserted
+     *
+     * @return The object
+     */
+    public Object getObject()
+    {
+        return object;
     }
 
     @Override
     public Void execute(Database database)
     {
         RawVoidOperation rawOperation = new RawVoidOperation(
+            object.getClass(),
             constructStatement(),
             getValues()
         );
 
         rawOperation.execute(database);
+
+        database.getSnapshotStore().ifPresent(store ->
+        {
+            Object[] values = store.capture(object);
+            database.afterCommit(() -> store.recordValues(object, values));
+        });
+
+        database.afterCommit(() ->
+        {
+            database.getEntityCache(object.getClass()).ifPresent(cache -> cache.put(object));
+            database.getKeyFilter(object.getClass()).ifPresent(filter -> filter.putObject(object));
+        });
+
         return null;
     }
 
     /**
-     * Constructs a statement for inserting the object
+     * Fetches the cached statement for inserting the object
      *
-     * @see #object
+     * @see StatementCache
      *
      * @return The statement
      */
     private String constructStatement()
+    {
+        return StatementCache.get(new StatementCache.Key(metadata.getType(), StatementCache.Type.INSERT), this::buildStatement);
+    }
+
+    /**
+     * Builds a statement for inserting the object
+     *
+     * @see #object
+     *
+     * @return The statement
+     */
+    private String buildStatement()
     {
         return String.format("INSERT INTO %s (%s) VALUES (%s);",
-            ClassTools.getTable(object.getClass()),
+            metadata.getTable(),
             getJoinedColumns(),
             String.join(",", Collections.nCopies(fields.size(), "?"))
         );
@@ -74,7 +117,7 @@ public class InsertOperation implements DatabaseOperation<Void>
      */
     private String getJoinedColumns()
     {
-        return String.join(",", getStream().map(ClassTools::getColumnName).collect(Collectors.toList()));
+        return String.join(",", getStream().map(ColumnField::getColumnName).collect(Collectors.toList()));
     }
 
     /**
@@ -85,14 +128,14 @@ public class InsertOperation implements DatabaseOperation<Void>
      */
     private Object[] getValues()
     {
-        return getStream().map(field ->
+        Object[] values = new Object[fields.size()];
+
+        for (int i = 0; i < values.length; i++)
         {
-            try
-            {
-                return field.get(object);
-            }
-            catch (IllegalAccessException ignored) { return null; }
-        }).toArray();
+            values[i] = fields.get(i).get(object);
+        }
+
+        return values;
     }
 
     /**
@@ -103,7 +146,7 @@ public class InsertOperation implements DatabaseOperation<Void>
      *
      * @return The field
      */
-    private Stream<Field> getStream()
+    private Stream<ColumnField> getStream()
     {
         return fields.stream();
     }
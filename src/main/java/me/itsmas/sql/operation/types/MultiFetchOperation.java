@@ -0,0 +1,124 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.mapping.ObjectMapper;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.condition.Condition;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for fetching every object matching the conditions
+ *
+ * For result sets too large to hold in memory, use {@link StreamFetchOperation}
+ */
+public class MultiFetchOperation<T> extends FetchOperation<T, List<T>>
+{
+    /**
+     * {@link MultiFetchOperation} constructor
+     *
+     * @param clazz The class to map the resulting objects to
+     */
+    public MultiFetchOperation(@Nonnull Class<T> clazz)
+    {
+        super(clazz);
+    }
+
+    /**
+     * Sets the amount of rows the driver fetches per round trip
+     *
+     * @param fetchSize The fetch size
+     *
+     * @return The operation instance
+     */
+    public MultiFetchOperation<T> fetchSize(int fetchSize)
+    {
+        checkArgument(fetchSize > 0, "Fetch size must be positive");
+
+        this.fetchSize = fetchSize;
+
+        return this;
+    }
+
+    @Override
+    public List<T> execute(Database database)
+    {
+        try
+        (
+            Connection connection = database.fetchReadConnection(clazz);
+            PreparedStatement statement = prepareStatement(connection);
+            ResultSet results = statement.executeQuery()
+        )
+        {
+            ObjectMapper<T> mapper = new ObjectMapper<>(metadata, results);
+            List<T> objects = new ArrayList<>();
+
+            while (results.next())
+            {
+                objects.add(mapper.map(results));
+            }
+
+            return objects;
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error fetching results from database query");
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public Object getIdentity()
+    {
+        return getQueryIdentity();
+    }
+
+    @Override
+    public MultiFetchOperation<T> where(String column, Object value)
+    {
+        super.where(column, value);
+
+        return this;
+    }
+
+    @Override
+    public MultiFetchOperation<T> where(Condition condition)
+    {
+        super.where(condition);
+
+        return this;
+    }
+
+    @Override
+    public MultiFetchOperation<T> orderBy(String column)
+    {
+        super.orderBy(column);
+
+        return this;
+    }
+
+    @Override
+    public MultiFetchOperation<T> orderBy(String column, boolean descending)
+    {
+        super.orderBy(column, descending);
+
+        return this;
+    }
+
+    @Override
+    public MultiFetchOperation<T> limit(int limit)
+    {
+        super.limit(limit);
+
+        return this;
+    }
+}
@@ -15,6 +15,12 @@ import java.sql.SQLException;
  * After gathering all needed data from the returned {@link ResultSet}
  * the {@link #closeResources()} method should be called to ensure
  * that the resources are properly closed and returned to the pool
+ *
+ * Prefer {@link HandledFetchOperation}, which closes the resources itself
+ *
+ * The query runs on the primary unless {@link #fromReplica()} is called,
+ * as arbitrary SQL such as locking reads or lock functions must not
+ * silently move to a replica
  */
 public class RawFetchOperation extends StatementOperation<ResultSet>
 {
@@ -23,6 +29,26 @@ public class RawFetchOperation extends StatementOperation<ResultSet>
         super(statement, data);
     }
 
+    /**
+     * Whether the query may be sent to a replica
+     */
+    private boolean fromReplica;
+
+    /**
+     * Allows the query to be sent to a replica, for plain
+     * reads which tolerate replication lag
+     *
+     * @see Database#fetchReadConnection()
+     *
+     * @return The operation instance
+     */
+    public RawFetchOperation fromReplica()
+    {
+        this.fromReplica = true;
+
+        return this;
+    }
+
     /**
      * The database connection used
      */
@@ -38,7 +64,7 @@ public class RawFetchOperation extends StatementOperation<ResultSet>
     {
         try
         {
-            connection = database.fetchConnection();
+            connection = fromReplica ? database.fetchReadConnection() : database.fetchPrimaryConnection();
             statement = prepareStatement(connection);
 
             return statement.executeQuery();
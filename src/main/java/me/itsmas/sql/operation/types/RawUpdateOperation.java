@@ -0,0 +1,44 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.util.Logs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * {@link DatabaseOperation} type for executing updates
+ * which return the amount of affected rows
+ */
+public class RawUpdateOperation extends StatementOperation<Integer>
+{
+    public RawUpdateOperation(String statement, Object... data)
+    {
+        super(statement, data);
+    }
+
+    RawUpdateOperation(Class<?> type, String statement, Object... data)
+    {
+        super(type, statement, data);
+    }
+
+    @Override
+    public Integer execute(Database database)
+    {
+        try
+        (
+            Connection connection = database.fetchConnection(getType());
+            PreparedStatement statement = prepareStatement(connection)
+        )
+        {
+            return statement.executeUpdate();
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error executing update statement");
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -18,12 +18,17 @@ public class RawVoidOperation extends StatementOperation<Void>
         super(statement, data);
     }
 
+    RawVoidOperation(Class<?> type, String statement, Object... data)
+    {
+        super(type, statement, data);
+    }
+
     @Override
     public Void execute(Database database)
     {
         try
         (
-            Connection connection = database.fetchConnection();
+            Connection connection = database.fetchConnection(getType());
             PreparedStatement statement = prepareStatement(connection)
         )
         {
@@ -0,0 +1,306 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.Logs;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for updating several
+ * fields of many rows of one class by their unique key
+ *
+ * Rows updating the same set of fields share one statement and are
+ * sent as a JDBC batch, all on one connection in a single transaction.
+ * Rows are updated by key alone, so versioned classes are rejected
+ */
+abstract class RowUpdateOperation implements DatabaseOperation<Void>
+{
+    /**
+     * The compiled metadata of the object class
+     */
+    final ObjectMetadata<?> metadata;
+
+    /**
+     * The row updates grouped by the fields they set
+     */
+    private final Map<List<ColumnField>, List<RowUpdate>> updates = new LinkedHashMap<>();
+
+    /**
+     * {@link RowUpdateOperation} constructor
+     *
+     * @param clazz The class of the rows being updated
+     */
+    RowUpdateOperation(@Nonnull Class<?> clazz)
+    {
+        this.metadata = ClassTools.getMetadata(clazz);
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+        checkArgument(!metadata.hasVersionColumn(), "Versioned classes must be updated one object at a time");
+    }
+
+    /**
+     * Adds an update of the row with the given unique key
+     *
+     * @param uniqueKey The unique key of the row
+     * @param values The values of the update, by field name
+     */
+    void addRow(@Nonnull Object uniqueKey, @Nonnull Map<String, ?> values)
+    {
+        checkArgument(!values.isEmpty(), "No fields to update");
+
+        List<ColumnField> fields = new ArrayList<>(values.size());
+
+        for (ColumnField column : metadata.getColumns())
+        {
+            if (values.containsKey(column.getName()))
+            {
+                fields.add(column);
+            }
+        }
+
+        checkArgument(fields.size() == values.size(), "Update contains fields which are not columns");
+
+        Object[] fieldValues = new Object[fields.size()];
+
+        for (int i = 0; i < fieldValues.length; i++)
+        {
+            fieldValues[i] = values.get(fields.get(i).getName());
+        }
+
+        updates.computeIfAbsent(fields, key -> new ArrayList<>()).add(new RowUpdate(uniqueKey, fieldValues));
+    }
+
+    /**
+     * Fetches the values of every row update, by unique key and field name
+     *
+     * @return The row updates
+     */
+    Map<Object, Map<String, Object>> getRows()
+    {
+        Map<Object, Map<String, Object>> rows = new LinkedHashMap<>();
+
+        updates.forEach((fields, fieldRows) ->
+        {
+            for (RowUpdate row : fieldRows)
+            {
+                Map<String, Object> values = rows.computeIfAbsent(row.uniqueKey, key -> new LinkedHashMap<>());
+
+                for (int i = 0; i < fields.size(); i++)
+                {
+                    values.put(fields.get(i).getName(), row.values[i]);
+                }
+            }
+        });
+
+        return rows;
+    }
+
+    /**
+     * Fetches whether the operation contains no updates
+     *
+     * @return If there are no updates
+     */
+    public boolean isEmpty()
+    {
+        return updates.isEmpty();
+    }
+
+    @Override
+    public Void execute(Database database)
+    {
+        if (updates.isEmpty())
+        {
+            return null;
+        }
+
+        try (Connection connection = database.fetchConnection(metadata.getType()))
+        {
+            connection.setAutoCommit(false);
+
+            try
+            {
+                for (Map.Entry<List<ColumnField>, List<RowUpdate>> entry : updates.entrySet())
+                {
+                    executeBatch(connection, entry.getKey(), entry.getValue());
+                }
+
+                connection.commit();
+            }
+            catch (SQLException | RuntimeException ex)
+            {
+                connection.rollback();
+                throw ex;
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error executing batch update statement");
+            throw new RuntimeException(ex);
+        }
+
+        database.afterCommit(() -> database.getEntityCache(metadata.getType()).ifPresent(cache ->
+            updates.values().forEach(rows -> rows.forEach(row -> cache.invalidate(row.uniqueKey)))
+        ));
+
+        return null;
+    }
+
+    /**
+     * Executes the updates setting one set of fields as a JDBC batch
+     *
+     * @param connection The database connection
+     * @param fields The fields being set
+     * @param rows The row updates
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    private void executeBatch(Connection connection, List<ColumnField> fields, List<RowUpdate> rows) throws SQLException
+    {
+        ColumnField uniqueField = metadata.getUniqueColumn();
+
+        try (PreparedStatement statement = connection.prepareStatement(constructStatement(fields)))
+        {
+            for (RowUpdate row : rows)
+            {
+                for (int i = 0; i < row.values.length; i++)
+                {
+                    setValue(statement, i + 1, fields.get(i), row.values[i]);
+                }
+
+                uniqueField.setParameter(statement, row.values.length + 1, row.uniqueKey);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Fetches the cached statement for setting a set of fields
+     *
+     * @see StatementCache
+     *
+     * @param fields The fields being set
+     *
+     * @return The statement
+     */
+    private String constructStatement(List<ColumnField> fields)
+    {
+        List<String> shape = new ArrayList<>(fields.size());
+
+        for (ColumnField field : fields)
+        {
+            shape.add(field.getName());
+        }
+
+        StatementCache.Key key = new StatementCache.Key(metadata.getType(), getStatementType(), shape);
+
+        return StatementCache.get(key, () -> buildStatement(fields));
+    }
+
+    /**
+     * Builds a statement for setting a set of fields
+     *
+     * @param fields The fields being set
+     *
+     * @return The statement
+     */
+    private String buildStatement(List<ColumnField> fields)
+    {
+        StringBuilder builder = new StringBuilder("UPDATE ").append(metadata.getTable()).append(" SET ");
+
+        for (int i = 0; i < fields.size(); i++)
+        {
+            if (i > 0)
+            {
+                builder.append(',');
+            }
+
+            appendAssignment(builder, fields.get(i));
+        }
+
+        return builder.append(" WHERE ").append(metadata.getUniqueColumn().getColumnName()).append("=?;").toString();
+    }
+
+    /**
+     * Fetches a column field by name
+     *
+     * @param fieldName The field name
+     *
+     * @return The column field
+     */
+    ColumnField getColumn(String fieldName)
+    {
+        ColumnField column = metadata.getColumn(fieldName);
+
+        checkArgument(column != null, "Field %s is not a column", fieldName);
+
+        return column;
+    }
+
+    /**
+     * Fetches the statement type used to cache statements
+     *
+     * @return The statement type
+     */
+    abstract StatementCache.Type getStatementType();
+
+    /**
+     * Appends the assignment of a field to the "SET" clause
+     *
+     * @param builder The statement builder
+     * @param field The field being set
+     */
+    abstract void appendAssignment(StringBuilder builder, ColumnField field);
+
+    /**
+     * Binds the value of a field update to a statement
+     *
+     * @param statement The statement
+     * @param index The parameter index
+     * @param field The field being set
+     * @param value The update value
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    abstract void setValue(PreparedStatement statement, int index, ColumnField field, Object value) throws SQLException;
+
+    /**
+     * An update of a single row
+     */
+    private static final class RowUpdate
+    {
+        /**
+         * The unique key of the row
+         */
+        private final Object uniqueKey;
+
+        /**
+         * The values to set, in field order
+         */
+        private final Object[] values;
+
+        private RowUpdate(Object uniqueKey, Object[] values)
+        {
+            this.uniqueKey = uniqueKey;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.cache.SnapshotStore;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.OptimisticLockException;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.Logs;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for saving the changed fields of an object
+ *
+ * With dirty tracking enabled, the object's fields are compared to the
+ * snapshot taken when it was fetched, inserted or last saved, and only
+ * the changed columns are written in one statement, or nothing at all
+ * if no field changed. Untracked objects have every column written
+ *
+ * Saves of versioned objects only apply if the row still holds the
+ * object's version, incrementing it, and otherwise throw an
+ * {@link OptimisticLockException}. The version is restored if the
+ * enclosing transaction rolls back
+ *
+ * @see Database#enableDirtyTracking()
+ */
+public class SaveOperation implements DatabaseOperation<Boolean>
+{
+    /**
+     * The object to save
+     */
+    private final Object object;
+
+    /**
+     * The compiled metadata of the object class
+     */
+    private final ObjectMetadata<?> metadata;
+
+    /**
+     * {@link SaveOperation} constructor
+     *
+     * @param object The object to save
+     */
+    public SaveOperation(@Nonnull Object object)
+    {
+        this.object = object;
+        this.metadata = ClassTools.getMetadata(object.getClass());
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+    }
+
+    /**
+     * Fetches the object being saved
+     *
+     * @return The object
+     */
+    public Object getObject()
+    {
+        return object;
+    }
+
+    /**
+     * Saves the changed fields of the object
+     *
+     * @param database The database instance
+     *
+     * @return Whether any fields were written
+     */
+    @Override
+    public Boolean execute(Database database)
+    {
+        List<ColumnField> columns = metadata.getColumns();
+        Object[] values = new Object[columns.size()];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = columns.get(i).get(object);
+        }
+
+        Optional<SnapshotStore> snapshots = database.getSnapshotStore();
+        List<Integer> changed = getChangedColumns(values, snapshots.map(store -> store.get(object)).orElse(null));
+
+        if (changed.isEmpty())
+        {
+            snapshots.ifPresent(SnapshotStore::recordSkippedSave);
+            return false;
+        }
+
+        ColumnField versionField = metadata.getVersionColumn();
+        int updated;
+
+        try
+        (
+            Connection connection = database.fetchConnection(metadata.getType());
+            PreparedStatement statement = connection.prepareStatement(constructStatement(changed))
+        )
+        {
+            int index = 1;
+
+            for (int column : changed)
+            {
+                columns.get(column).setParameter(statement, index++, values[column]);
+            }
+
+            metadata.getUniqueColumn().updateStatement(statement, index++, object);
+
+            if (versionField != null)
+            {
+                versionField.updateStatement(statement, index, object);
+            }
+
+            updated = statement.executeUpdate();
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error executing save statement");
+            throw new RuntimeException(ex);
+        }
+
+        if (versionField != null)
+        {
+            if (updated == 0)
+            {
+                throw new OptimisticLockException(object, versionField.get(object));
+            }
+
+            Object previousVersion = versionField.get(object);
+            Object version = metadata.getNextVersion(object);
+
+            versionField.set(object, version);
+            values[columns.indexOf(versionField)] = version;
+
+            database.onRollback(() -> versionField.set(object, previousVersion));
+        }
+
+        database.afterCommit(() ->
+        {
+            snapshots.ifPresent(store -> store.recordValues(object, values));
+            database.getEntityCache(object.getClass()).ifPresent(cache -> cache.put(object));
+        });
+
+        return true;
+    }
+
+    /**
+     * Fetches the indices of the columns whose value differs from the snapshot
+     *
+     * @param values The current column values
+     * @param snapshot The snapshot, or null to treat every column as changed
+     *
+     * @return The changed column indices, excluding the unique key and version
+     */
+    private List<Integer> getChangedColumns(Object[] values, Object[] snapshot)
+    {
+        List<ColumnField> columns = metadata.getColumns();
+        List<Integer> changed = new ArrayList<>();
+
+        for (int i = 0; i < values.length; i++)
+        {
+            ColumnField column = columns.get(i);
+
+            if (column != metadata.getUniqueColumn() && column != metadata.getVersionColumn() && (snapshot == null || !Objects.deepEquals(snapshot[i], values[i])))
+            {
+                changed.add(i);
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Fetches the cached statement for saving the given columns
+     *
+     * @see StatementCache
+     *
+     * @param changed The changed column indices
+     *
+     * @return The statement
+     */
+    private String constructStatement(List<Integer> changed)
+    {
+        StatementCache.Key key = new StatementCache.Key(metadata.getType(), StatementCache.Type.SAVE, changed);
+
+        return StatementCache.get(key, () -> buildStatement(changed));
+    }
+
+    /**
+     * Builds a statement for saving the given columns
+     *
+     * @param changed The changed column indices
+     *
+     * @return The statement
+     */
+    private String buildStatement(List<Integer> changed)
+    {
+        StringBuilder builder = new StringBuilder("UPDATE ").append(metadata.getTable()).append(" SET ");
+
+        for (int i = 0; i < changed.size(); i++)
+        {
+            builder.append(i == 0 ? "" : ",").append(metadata.getColumns().get(changed.get(i)).getColumnName()).append("=?");
+        }
+
+        ColumnField versionField = metadata.getVersionColumn();
+
+        if (versionField != null)
+        {
+            builder.append(',').append(versionField.getColumnName()).append('=').append(versionField.getColumnName()).append("+1");
+        }
+
+        builder.append(" WHERE ").append(metadata.getUniqueColumn().getColumnName()).append("=?");
+
+        if (versionField != null)
+        {
+            builder.append(" AND ").append(versionField.getColumnName()).append("=?");
+        }
+
+        return builder.append(';').toString();
+    }
+}
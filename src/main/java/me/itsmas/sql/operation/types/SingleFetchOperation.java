@@ -1,30 +1,32 @@
 package me.itsmas.sql.operation.types;
 
 import me.itsmas.sql.Database;
-import me.itsmas.sql.mapping.Mapping;
-import me.itsmas.sql.mapping.Mappings;
+import me.itsmas.sql.cache.EntityCache;
+import me.itsmas.sql.mapping.ObjectMapper;
 import me.itsmas.sql.operation.DatabaseOperation;
-import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.operation.condition.Condition;
 import me.itsmas.sql.util.Logs;
 
 import javax.annotation.Nonnull;
-import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * {@link DatabaseOperation} type for fetching objects from the database
  *
  * The query will only fetch the first operation matching the conditions
+ *
+ * Lookups by unique key consult the entity cache and key filter with the
+ * key converted to the unique field's type, as batched lookups do, so a
+ * key given as another numeric type still hits the cache
  */
-public class SingleFetchOperation<T> extends ConditionOperation<Optional<T>>
+public class SingleFetchOperation<T> extends FetchOperation<T, Optional<T>>
 {
-    /**
-     * The class to map the resulting object to
-     */
-    private final Class<T> clazz;
-
     /**
      * {@link SingleFetchOperation} constructor
      *
@@ -32,83 +34,110 @@ public class SingleFetchOperation<T> extends ConditionOperation<Optional<T>>
      */
     public SingleFetchOperation(@Nonnull Class<T> clazz)
     {
-        this.clazz = clazz;
+        super(clazz);
+
+        this.limit = 1;
     }
 
     @Override
     public Optional<T> execute(Database database)
     {
-        RawFetchOperation rawOperation = new RawFetchOperation(constructStatement(), conditions.values().toArray());
-        ResultSet results = rawOperation.execute(database);
+        Object lookup = database.isInTransaction() ? null : getUniqueKeyLookup();
+        Object uniqueKey = lookup == null ? null : metadata.getUniqueColumn().toFieldType(lookup);
+        Optional<EntityCache<T>> cache = uniqueKey == null ? Optional.empty() : database.getEntityCache(clazz);
 
-        try
+        if (cache.isPresent())
         {
-            if (results.first())
-            {
-                T mapped = getMappedObject(results);
-                rawOperation.closeResources();
+            Optional<T> cached = cache.get().get(uniqueKey);
 
-                return Optional.ofNullable(mapped);
+            if (cached.isPresent())
+            {
+                return cached;
             }
         }
-        catch (SQLException ex)
+
+        if (uniqueKey != null && database.getKeyFilter(clazz).map(filter -> filter.isDefinitelyAbsent(uniqueKey)).orElse(false))
         {
-            Logs.severe("Error fetching results from database query");
-            throw new RuntimeException(ex);
+            return Optional.empty();
+        }
+
+        Optional<T> result = query(database);
+
+        if (cache.isPresent() && result.isPresent() && database.isCacheableRead(clazz))
+        {
+            cache.get().put(result.get());
         }
 
-        return Optional.empty();
+        result.ifPresent(object -> database.getSnapshotStore().ifPresent(store ->
+        {
+            Object[] values = store.capture(object);
+            database.afterCommit(() -> store.recordValues(object, values));
+        }));
+
+        return result;
     }
 
     /**
-     * Creates the mapped objects
-     * from a {@link ResultSet} object
+     * Queries the database for the first matching object
      *
-     * @param results The query results
+     * @param database The database
      *
-     * @return The mapped object
+     * @return The optional object
      */
-    private T getMappedObject(ResultSet results)
+    private Optional<T> query(Database database)
     {
-        T object = ClassTools.newInstance(clazz);
-
         try
+        (
+            Connection connection = database.fetchReadConnection(clazz);
+            PreparedStatement statement = prepareStatement(connection);
+            ResultSet results = statement.executeQuery()
+        )
         {
-            for (Field field : ClassTools.getDatabaseFields(clazz))
+            if (results.next())
             {
-                Optional<Mapping> mapping = Mappings.getMapping(field.getType());
-
-                if (mapping.isPresent())
-                {
-                    Object value = mapping.get().fromResults(results, ClassTools.getColumnName(field));
-
-                    field.set(object, value);
-                }
+                return Optional.ofNullable(new ObjectMapper<>(metadata, results).map(results));
             }
 
-            return object;
+            return Optional.empty();
         }
         catch (SQLException ex)
         {
-            Logs.severe("Error creating mapped object from ResultSet");
+            Logs.severe("Error fetching results from database query");
             throw new RuntimeException(ex);
         }
-        catch (IllegalAccessException ignored) { return null; }
     }
 
     /**
-     * Constructs an SQL statement for fetching the object
+     * Fetches whether the operation looks up a row
+     * by its unique key, with no other conditions
+     *
+     * @return If the operation is a unique key lookup
+     */
+    public boolean isUniqueKeyLookup()
+    {
+        return getUniqueKeyLookup() != null;
+    }
+
+    /**
+     * Fetches the unique key the operation looks up
      *
-     * @see #conditions
+     * @see #isUniqueKeyLookup()
      *
-     * @return The statement
+     * @return The unique key
      */
-    private String constructStatement()
+    public Object getUniqueKey()
     {
-        return String.format("SELECT * FROM %s WHERE %s LIMIT 1;",
-            ClassTools.getTable(clazz),
-            getConditionString()
-        );
+        Object uniqueKey = getUniqueKeyLookup();
+
+        checkArgument(uniqueKey != null, "Operation is not a unique key lookup");
+
+        return uniqueKey;
+    }
+
+    @Override
+    public Object getIdentity()
+    {
+        return getQueryIdentity();
     }
 
     @Override
@@ -118,4 +147,44 @@ public class SingleFetchOperation<T> extends ConditionOperation<Optional<T>>
 
         return this;
     }
+
+    @Override
+    public SingleFetchOperation<T> where(Condition condition)
+    {
+        super.where(condition);
+
+        return this;
+    }
+
+    @Override
+    public SingleFetchOperation<T> orderBy(String column)
+    {
+        super.orderBy(column);
+
+        return this;
+    }
+
+    @Override
+    public SingleFetchOperation<T> orderBy(String column, boolean descending)
+    {
+        super.orderBy(column, descending);
+
+        return this;
+    }
+
+    /**
+     * Single fetches are always limited to one row,
+     * so only a limit of one is accepted
+     *
+     * @param limit The maximum amount of rows, which must be 1
+     *
+     * @return The operation instance
+     */
+    @Override
+    public SingleFetchOperation<T> limit(int limit)
+    {
+        checkArgument(limit == 1, "Single fetch operations are limited to one row");
+
+        return this;
+    }
 }
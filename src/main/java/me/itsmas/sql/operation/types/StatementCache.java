@@ -0,0 +1,149 @@
+package me.itsmas.sql.operation.types;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of generated SQL statements
+ *
+ * Statements are keyed by the object class, the operation type and
+ * the shape of the operation, so repeated operations reuse the exact
+ * same statement text instead of rebuilding it
+ */
+final class StatementCache
+{
+    private StatementCache() {}
+
+    /**
+     * The maximum amount of cached statements
+     */
+    private static final int MAXIMUM_SIZE = 4096;
+
+    /**
+     * Cache of statement keys to their SQL text
+     */
+    private static final Cache<Key, String> STATEMENTS = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SIZE)
+        .build();
+
+    /**
+     * Fetches a cached statement, building and caching it if absent
+     *
+     * @param key The statement key
+     * @param builder The statement builder
+     *
+     * @return The statement
+     */
+    static String get(@Nonnull Key key, @Nonnull Callable<String> builder)
+    {
+        try
+        {
+            return STATEMENTS.get(key, builder);
+        }
+        catch (ExecutionException ex)
+        {
+            Logs.severe("Error building statement");
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * The types of generated statements
+     */
+    enum Type
+    {
+        INSERT,
+        BATCH_INSERT,
+        UPSERT,
+        BATCH_UPSERT,
+        UPDATE,
+        BATCH_UPDATE,
+        SAVE,
+        INCREMENT,
+        FETCH
+    }
+
+    /**
+     * Key identifying the shape of a generated statement
+     */
+    static final class Key
+    {
+        /**
+         * The object class
+         */
+        private final Class<?> clazz;
+
+        /**
+         * The statement type
+         */
+        private final Type type;
+
+        /**
+         * The shape of the statement, such as its column names
+         */
+        private final List<?> shape;
+
+        /**
+         * The cached hash code
+         */
+        private final int hash;
+
+        /**
+         * {@link Key} constructor
+         *
+         * @param clazz The object class
+         * @param type The statement type
+         * @param shape The shape of the statement
+         */
+        Key(@Nonnull Class<?> clazz, @Nonnull Type type, @Nonnull List<?> shape)
+        {
+            this.clazz = clazz;
+            this.type = type;
+            this.shape = shape;
+
+            this.hash = Objects.hash(clazz, type, shape);
+        }
+
+        /**
+         * {@link Key} constructor for statements with a fixed shape
+         *
+         * @param clazz The object class
+         * @param type The statement type
+         */
+        Key(@Nonnull Class<?> clazz, @Nonnull Type type)
+        {
+            this(clazz, type, Collections.emptyList());
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object)
+            {
+                return true;
+            }
+
+            if (!(object instanceof Key))
+            {
+                return false;
+            }
+
+            Key key = (Key) object;
+            return clazz == key.clazz && type == key.type && shape.equals(key.shape);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+}
@@ -25,6 +25,11 @@ abstract class StatementOperation<T> implements DatabaseOperation<T>
      */
     private final Object[] data;
 
+    /**
+     * The class whose table the statement writes, or null if unknown
+     */
+    private final Class<?> type;
+
     /**
      * {@link StatementOperation} constructor
      *
@@ -33,10 +38,33 @@ abstract class StatementOperation<T> implements DatabaseOperation<T>
      */
     StatementOperation(String statement, Object... data)
     {
+        this(null, statement, data);
+    }
+
+    /**
+     * {@link StatementOperation} constructor for a statement on the table of a class
+     *
+     * @param type The class whose table the statement writes, or null if unknown
+     * @param statement The SQL statement
+     * @param data The statement data
+     */
+    StatementOperation(Class<?> type, String statement, Object... data)
+    {
+        this.type = type;
         this.statement = statement;
         this.data = data;
     }
 
+    /**
+     * Fetches the class whose table the statement writes
+     *
+     * @return The class, or null if unknown
+     */
+    Class<?> getType()
+    {
+        return type;
+    }
+
     /**
      * Prepares an SQL statement for execution
      *
@@ -49,11 +77,27 @@ abstract class StatementOperation<T> implements DatabaseOperation<T>
      *
      * @throws SQLException If an SQL error is encountered
      */
-    @SuppressWarnings("unchecked")
     PreparedStatement prepareStatement(Connection connection) throws SQLException
     {
         PreparedStatement preparedStatement = connection.prepareStatement(statement);
 
+        setParameters(preparedStatement, data);
+
+        return preparedStatement;
+    }
+
+    /**
+     * Binds data to the parameters of a statement
+     * using the {@link Mapping} of each value's class
+     *
+     * @param preparedStatement The statement
+     * @param data The statement data
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    @SuppressWarnings("unchecked")
+    static void setParameters(PreparedStatement preparedStatement, Object... data) throws SQLException
+    {
         for (int i = 1; i <= data.length; i++)
         {
             Object object = data[i - 1];
@@ -69,7 +113,5 @@ abstract class StatementOperation<T> implements DatabaseOperation<T>
                 Logs.severe("No mapping found for class %s", object.getClass().getCanonicalName());
             }
         }
-
-        return preparedStatement;
     }
 }
@@ -0,0 +1,342 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.mapping.ObjectMapper;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.condition.Condition;
+import me.itsmas.sql.settings.DatabaseSettings;
+import me.itsmas.sql.util.Logs;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for lazily streaming objects from the database
+ *
+ * Rows are read from a forward-only, read-only cursor as the returned
+ * {@link Stream} is consumed, so large results are processed in constant
+ * memory. The stream holds a pooled connection until it is exhausted or
+ * closed, so it should always be used in a try-with-resources block
+ *
+ * MySQL only reads a positive fetch size through a cursor with the
+ * "useCursorFetch" connection property, and otherwise buffers the whole
+ * result set. Without an explicit fetch size, streams fetch
+ * {@value #DEFAULT_FETCH_SIZE} rows per round trip when cursor fetching
+ * is enabled and stream rows one at a time when it is not
+ *
+ * Inside {@link Database#runInTransaction} the rows are read in full
+ * before the stream is returned, as the transaction's connection must
+ * be free for its later statements and is returned to the pool once
+ * the transaction ends, which a lazy cursor could outlive
+ *
+ * @see DatabaseSettings.Builder#cursorFetch(boolean)
+ */
+public class StreamFetchOperation<T> extends FetchOperation<T, Stream<T>>
+{
+    /**
+     * The default amount of rows fetched per round trip with cursor fetching
+     */
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * {@link StreamFetchOperation} constructor
+     *
+     * @param clazz The class to map the resulting objects to
+     */
+    public StreamFetchOperation(@Nonnull Class<T> clazz)
+    {
+        super(clazz);
+    }
+
+    /**
+     * Sets the amount of rows the driver fetches per round trip
+     *
+     * With MySQL this requires the "useCursorFetch" connection property,
+     * otherwise the driver reads the whole result set into memory
+     *
+     * @param fetchSize The fetch size
+     *
+     * @return The operation instance
+     */
+    public StreamFetchOperation<T> fetchSize(int fetchSize)
+    {
+        checkArgument(fetchSize > 0, "Fetch size must be positive");
+
+        this.fetchSize = fetchSize;
+
+        return this;
+    }
+
+    /**
+     * Makes the MySQL driver stream rows one at a time
+     *
+     * No other statement may be run on the connection until the
+     * stream is closed, which the operation's own connection ensures
+     *
+     * @return The operation instance
+     */
+    public StreamFetchOperation<T> streamRows()
+    {
+        this.fetchSize = STREAMING_FETCH_SIZE;
+
+        return this;
+    }
+
+    /**
+     * Fetches the fetch size to stream with on a database
+     *
+     * @param database The database
+     *
+     * @return The explicit fetch size, or the default for the database's cursor fetching
+     */
+    private int getFetchSize(Database database)
+    {
+        if (fetchSize != 0)
+        {
+            return fetchSize;
+        }
+
+        return database.getSettings().isCursorFetch() ? DEFAULT_FETCH_SIZE : STREAMING_FETCH_SIZE;
+    }
+
+    @Override
+    public Stream<T> execute(Database database)
+    {
+        if (database.isInTransaction())
+        {
+            return fetchAll(database).stream();
+        }
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+
+        try
+        {
+            connection = database.fetchReadConnection(clazz);
+            statement = prepareStatement(connection, getFetchSize(database));
+
+            ResultSet results = statement.executeQuery();
+            RowSpliterator spliterator = new RowSpliterator(connection, statement, results);
+
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        }
+        catch (SQLException ex)
+        {
+            close(connection, statement);
+
+            Logs.severe("Error executing database query");
+            throw new RuntimeException(ex);
+        }
+        catch (RuntimeException ex)
+        {
+            close(connection, statement);
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads every matching row up front on the transaction's connection
+     *
+     * @param database The database
+     *
+     * @return The objects
+     */
+    private List<T> fetchAll(Database database)
+    {
+        try
+        (
+            Connection connection = database.fetchReadConnection(clazz);
+            PreparedStatement statement = prepareStatement(connection);
+            ResultSet results = statement.executeQuery()
+        )
+        {
+            ObjectMapper<T> mapper = new ObjectMapper<>(metadata, results);
+            List<T> objects = new ArrayList<>();
+
+            while (results.next())
+            {
+                objects.add(mapper.map(results));
+            }
+
+            return objects;
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error fetching results from database query");
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Closes a statement and returns its connection to the pool
+     *
+     * @param connection The connection, may be null
+     * @param statement The statement, may be null
+     */
+    private static void close(Connection connection, PreparedStatement statement)
+    {
+        try
+        {
+            if (statement != null)
+            {
+                statement.close();
+            }
+
+            if (connection != null)
+            {
+                connection.close();
+            }
+        }
+        catch (SQLException ex)
+        {
+            Logs.severe("Error closing resources");
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * {@link Spliterator} mapping rows as the cursor advances
+     *
+     * The cursor's resources are released once
+     * the last row is read or the stream is closed
+     */
+    private final class RowSpliterator extends Spliterators.AbstractSpliterator<T>
+    {
+        /**
+         * The connection the cursor is open on
+         */
+        private final Connection connection;
+
+        /**
+         * The statement the cursor belongs to
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * The cursor
+         */
+        private final ResultSet results;
+
+        /**
+         * The row mapper, created on the first row
+         */
+        private ObjectMapper<T> mapper;
+
+        /**
+         * Whether the resources have been released
+         */
+        private boolean closed;
+
+        private RowSpliterator(Connection connection, PreparedStatement statement, ResultSet results)
+        {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+
+            this.connection = connection;
+            this.statement = statement;
+            this.results = results;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action)
+        {
+            if (closed)
+            {
+                return false;
+            }
+
+            try
+            {
+                if (!results.next())
+                {
+                    close();
+                    return false;
+                }
+
+                if (mapper == null)
+                {
+                    mapper = new ObjectMapper<>(metadata, results);
+                }
+
+                action.accept(mapper.map(results));
+                return true;
+            }
+            catch (SQLException ex)
+            {
+                close();
+
+                Logs.severe("Error fetching results from database query");
+                throw new RuntimeException(ex);
+            }
+            catch (RuntimeException ex)
+            {
+                close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Releases the cursor's resources
+         */
+        private void close()
+        {
+            if (!closed)
+            {
+                closed = true;
+
+                StreamFetchOperation.close(connection, statement);
+            }
+        }
+    }
+
+    @Override
+    public StreamFetchOperation<T> where(String column, Object value)
+    {
+        super.where(column, value);
+
+        return this;
+    }
+
+    @Override
+    public StreamFetchOperation<T> where(Condition condition)
+    {
+        super.where(condition);
+
+        return this;
+    }
+
+    @Override
+    public StreamFetchOperation<T> orderBy(String column)
+    {
+        super.orderBy(column);
+
+        return this;
+    }
+
+    @Override
+    public StreamFetchOperation<T> orderBy(String column, boolean descending)
+    {
+        super.orderBy(column, descending);
+
+        return this;
+    }
+
+    @Override
+    public StreamFetchOperation<T> limit(int limit)
+    {
+        super.limit(limit);
+
+        return this;
+    }
+}
@@ -0,0 +1,87 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for running a sequence of operations
+ * on one connection, committed together in a single transaction
+ *
+ * If any operation fails, the whole transaction is rolled back.
+ * Operations which execute others asynchronously, such as parallel
+ * bulk fetches, run those outside the transaction
+ *
+ * @see Database#runInTransaction(int, java.util.function.Supplier)
+ */
+public class TransactionOperation implements DatabaseOperation<List<Object>>
+{
+    /**
+     * The operations of the transaction, in execution order
+     */
+    private final List<DatabaseOperation<?>> operations = new ArrayList<>();
+
+    /**
+     * The {@link Connection} isolation level, or -1 for the default
+     */
+    private int isolationLevel = -1;
+
+    /**
+     * Adds an operation to the transaction
+     *
+     * @param operation The operation
+     *
+     * @return The operation instance
+     */
+    public TransactionOperation add(@Nonnull DatabaseOperation<?> operation)
+    {
+        operations.add(operation);
+
+        return this;
+    }
+
+    /**
+     * Sets the isolation level of the transaction
+     *
+     * @param isolationLevel The {@link Connection} isolation level, such as {@link Connection#TRANSACTION_READ_COMMITTED}
+     *
+     * @return The operation instance
+     */
+    public TransactionOperation isolation(int isolationLevel)
+    {
+        checkArgument(isolationLevel != Connection.TRANSACTION_NONE, "Transactions require an isolation level");
+
+        this.isolationLevel = isolationLevel;
+
+        return this;
+    }
+
+    /**
+     * Executes the operations in one transaction
+     *
+     * @param database The database instance
+     *
+     * @return The result of each operation, in execution order
+     */
+    @Override
+    public List<Object> execute(Database database)
+    {
+        return database.runInTransaction(isolationLevel, () ->
+        {
+            List<Object> results = new ArrayList<>(operations.size());
+
+            for (DatabaseOperation<?> operation : operations)
+            {
+                results.add(operation.execute(database));
+            }
+
+            return results;
+        });
+    }
+}
@@ -1,10 +1,17 @@
 package me.itsmas.sql.operation.types;
 
 import me.itsmas.sql.Database;
+import me.itsmas.sql.annotation.Version;
 import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.OptimisticLockException;
+import me.itsmas.sql.operation.condition.Condition;
 import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
 
-import java.lang.reflect.Field;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * {@link DatabaseOperation} type for updating existing data
@@ -17,19 +24,19 @@ public class UpdateOperation extends ConditionOperation<Void>
     private final Object object;
 
     /**
-     * The class of the object being updated
+     * The compiled metadata of the object class
      */
-    private final Class<?> clazz;
+    private final ObjectMetadata<?> metadata;
 
     /**
      * The field holding the being updated
      */
-    private final Field valueField;
+    private final ColumnField valueField;
 
     /**
      * The unique field for the object
      */
-    private final Field uniqueField;
+    private final ColumnField uniqueField;
 
     /**
      * {@link UpdateOperation} constructor
@@ -40,34 +47,163 @@ public class UpdateOperation extends ConditionOperation<Void>
     public UpdateOperation(Object object, String fieldName)
     {
         this.object = object;
-        this.clazz = object.getClass();
+        this.metadata = ClassTools.getMetadata(object.getClass());
+
+        this.valueField = metadata.getColumn(fieldName);
+        this.uniqueField = metadata.getUniqueColumn();
+
+        checkArgument(valueField != null, "Field %s is not a column", fieldName);
+        checkArgument(valueField != metadata.getVersionColumn(), "Version field %s cannot be updated directly", fieldName);
+    }
+
+    /**
+     * Fetches the object being updated
+     *
+     * @return The object
+     */
+    public Object getObject()
+    {
+        return object;
+    }
+
+    /**
+     * Fetches the name of the field being updated
+     *
+     * @return The field name
+     */
+    public String getFieldName()
+    {
+        return valueField.getName();
+    }
 
-        this.valueField = ClassTools.getField(clazz, fieldName);
-        this.uniqueField = ClassTools.getUniqueField(clazz);
+    /**
+     * Fetches whether the update only targets the object's
+     * row by its unique key, with no extra conditions applied
+     *
+     * @return If the update is a plain unique key update
+     */
+    public boolean isUniqueKeyUpdate()
+    {
+        return isUnconditional();
     }
 
+    /**
+     * Fetches whether the object is versioned, in which case the
+     * update fails with an {@link OptimisticLockException} if the
+     * row was updated by another writer since the object was read
+     *
+     * @see Version
+     *
+     * @return If the update checks the object version
+     */
+    public boolean isVersioned()
+    {
+        return metadata.hasVersionColumn();
+    }
+
+    /**
+     * Updates the field, incrementing the version of versioned objects
+     *
+     * Versioned unique key updates which match no row throw an
+     * {@link OptimisticLockException}, while conditional updates
+     * which match no row leave the object version unchanged. The
+     * version is restored if the enclosing transaction rolls back
+     *
+     * @param database The database instance
+     *
+     * @return Null
+     */
     @Override
     public Void execute(Database database)
     {
-        RawVoidOperation rawOperation = new RawVoidOperation(constructStatement(), getValues());
-        rawOperation.execute(database);
+        RawUpdateOperation rawOperation = new RawUpdateOperation(metadata.getType(), constructStatement(), getValues());
+        int updated = rawOperation.execute(database);
+
+        Object uniqueKey = uniqueField.get(object);
+        database.afterCommit(() -> database.getEntityCache(metadata.getType()).ifPresent(cache -> cache.invalidate(uniqueKey)));
+
+        ColumnField versionField = metadata.getVersionColumn();
+
+        if (versionField != null)
+        {
+            if (updated == 0)
+            {
+                if (isUniqueKeyUpdate())
+                {
+                    throw new OptimisticLockException(object, versionField.get(object));
+                }
+
+                return null;
+            }
+
+            Object version = versionField.get(object);
+
+            versionField.set(object, metadata.getNextVersion(object));
+            database.onRollback(() -> versionField.set(object, version));
+        }
+
+        if (isUniqueKeyUpdate())
+        {
+            database.getSnapshotStore().ifPresent(store ->
+            {
+                Object value = valueField.get(object);
+                Object version = versionField == null ? null : versionField.get(object);
+
+                database.afterCommit(() ->
+                {
+                    store.recordValue(object, valueField, value);
+
+                    if (versionField != null)
+                    {
+                        store.recordValue(object, versionField, version);
+                    }
+                });
+            });
+        }
 
         return null;
     }
 
     /**
-     * Constructs an SQL statement
+     * Fetches the cached SQL statement
      * for updating the object
      *
+     * @see StatementCache
+     *
      * @return The statement
      */
     private String constructStatement()
     {
-        return String.format("UPDATE %s SET %s WHERE %s;",
-            ClassTools.getTable(object.getClass()),
-            ClassTools.getColumnName(valueField) + "=?",
-            getConditionString()
-        );
+        List<Object> shape = getConditionShape();
+        shape.add(valueField.getName());
+
+        StatementCache.Key key = new StatementCache.Key(metadata.getType(), StatementCache.Type.UPDATE, shape);
+
+        return StatementCache.get(key, this::buildStatement);
+    }
+
+    /**
+     * Builds an SQL statement
+     * for updating the object
+     *
+     * @return The statement
+     */
+    private String buildStatement()
+    {
+        StringBuilder builder = new StringBuilder("UPDATE ").append(metadata.getTable())
+            .append(" SET ").append(valueField.getColumnName()).append("=?");
+
+        ColumnField versionField = metadata.getVersionColumn();
+
+        if (versionField != null)
+        {
+            builder.append(',').append(versionField.getColumnName()).append('=').append(versionField.getColumnName()).append("+1");
+        }
+
+        appendWhere(builder);
+        appendOrderAndLimit(builder);
+
+        return builder.append(';').toString();
     }
 
     @Override
@@ -91,7 +227,10 @@ public class UpdateOperation extends ConditionOperation<Void>
      */
     private String getUniqueKeyCondition()
     {
-        return ClassTools.getColumnName(uniqueField) + "=?";
+        ColumnField versionField = metadata.getVersionColumn();
+        String condition = uniqueField.getColumnName() + "=?";
+
+        return versionField == null ? condition : condition + " AND " + versionField.getColumnName() + "=?";
     }
 
     /**
@@ -102,20 +241,26 @@ public class UpdateOperation extends ConditionOperation<Void>
      */
     private Object[] getValues()
     {
-        try
-        {
-            Object[] objects = new Object[conditions.size() + 2];
+        List<Object> conditionValues = getConditionValues();
+        ColumnField versionField = metadata.getVersionColumn();
 
-            objects[0] = valueField.get(object);
+        Object[] objects = new Object[conditionValues.size() + (versionField == null ? 2 : 3)];
 
-            Object[] conditionValues = conditions.values().toArray();
-            System.arraycopy(conditionValues, 0, objects, 1, conditionValues.length);
+        objects[0] = valueField.get(object);
 
-            objects[objects.length - 1] = uniqueField.get(object);
+        for (int i = 0; i < conditionValues.size(); i++)
+        {
+            objects[i + 1] = conditionValues.get(i);
+        }
+
+        objects[conditionValues.size() + 1] = uniqueField.get(object);
 
-            return objects;
+        if (versionField != null)
+        {
+            objects[objects.length - 1] = versionField.get(object);
         }
-        catch (IllegalAccessException ignored) { return null; }
+
+        return objects;
     }
 
     @Override
@@ -125,4 +270,36 @@ public class UpdateOperation extends ConditionOperation<Void>
 
         return this;
     }
+
+    @Override
+    public UpdateOperation where(Condition condition)
+    {
+        super.where(condition);
+
+        return this;
+    }
+
+    @Override
+    public UpdateOperation orderBy(String column)
+    {
+        super.orderBy(column);
+
+        return this;
+    }
+
+    @Override
+    public UpdateOperation orderBy(String column, boolean descending)
+    {
+        super.orderBy(column, descending);
+
+        return this;
+    }
+
+    @Override
+    public UpdateOperation limit(int limit)
+    {
+        super.limit(limit);
+
+        return this;
+    }
 }
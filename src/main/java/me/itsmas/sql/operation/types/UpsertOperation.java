@@ -0,0 +1,165 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link DatabaseOperation} type for inserting an object,
+ * or updating its row if its unique key already exists
+ *
+ * Every insert field other than the unique key
+ * is overwritten with the object's value
+ *
+ * Columns outside the insert fields keep their database values when
+ * the row already exists, so the object is evicted from the entity
+ * cache and dirty tracking rather than written through. Versioned
+ * classes cannot be upserted, as the update would skip the version check
+ */
+public class UpsertOperation implements DatabaseOperation<Void>
+{
+    /**
+     * The object to upsert
+     */
+    private final Object object;
+
+    /**
+     * The compiled metadata of the object class
+     */
+    private final ObjectMetadata<?> metadata;
+
+    /**
+     * {@link UpsertOperation} constructor
+     *
+     * @param object The object to upsert
+     */
+    public UpsertOperation(@Nonnull Object object)
+    {
+        this.object = object;
+        this.metadata = ClassTools.getMetadata(object.getClass());
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+        checkArgument(!metadata.hasVersionColumn(), "Versioned classes cannot be upserted");
+    }
+
+    /**
+     * Fetches the object being upserted
+     *
+     * @return The object
+     */
+    public Object getObject()
+    {
+        return object;
+    }
+
+    @Override
+    public Void execute(Database database)
+    {
+        RawVoidOperation rawOperation = new RawVoidOperation(metadata.getType(), constructStatement(), getValues());
+        rawOperation.execute(database);
+
+        database.getSnapshotStore().ifPresent(store -> store.forget(object));
+
+        database.afterCommit(() ->
+        {
+            database.getEntityCache(object.getClass()).ifPresent(cache -> cache.invalidate(metadata.getUniqueColumn().get(object)));
+            database.getKeyFilter(object.getClass()).ifPresent(filter -> filter.putObject(object));
+        });
+
+        return null;
+    }
+
+    /**
+     * Fetches the cached statement for upserting the object
+     *
+     * @see StatementCache
+     *
+     * @return The statement
+     */
+    private String constructStatement()
+    {
+        return StatementCache.get(new StatementCache.Key(metadata.getType(), StatementCache.Type.UPSERT), this::buildStatement);
+    }
+
+    /**
+     * Builds a statement for upserting the object
+     *
+     * @return The statement
+     */
+    private String buildStatement()
+    {
+        List<ColumnField> fields = metadata.getInsertColumns();
+        StringBuilder builder = new StringBuilder("INSERT INTO ").append(metadata.getTable()).append(" (");
+
+        for (int i = 0; i < fields.size(); i++)
+        {
+            builder.append(i == 0 ? "" : ",").append(fields.get(i).getColumnName());
+        }
+
+        builder.append(") VALUES (");
+
+        for (int i = 0; i < fields.size(); i++)
+        {
+            builder.append(i == 0 ? "?" : ",?");
+        }
+
+        builder.append(')');
+        appendUpdateClause(builder, metadata);
+
+        return builder.append(';').toString();
+    }
+
+    /**
+     * Appends the "ON DUPLICATE KEY UPDATE" clause, overwriting
+     * every insert column other than the unique key
+     *
+     * @param builder The statement builder
+     * @param metadata The metadata of the object class
+     */
+    static void appendUpdateClause(StringBuilder builder, ObjectMetadata<?> metadata)
+    {
+        ColumnField uniqueField = metadata.getUniqueColumn();
+        builder.append(" ON DUPLICATE KEY UPDATE ");
+
+        int length = builder.length();
+
+        for (ColumnField field : metadata.getInsertColumns())
+        {
+            if (field != uniqueField)
+            {
+                builder.append(builder.length() == length ? "" : ",")
+                    .append(field.getColumnName()).append("=VALUES(").append(field.getColumnName()).append(')');
+            }
+        }
+
+        if (builder.length() == length)
+        {
+            builder.append(uniqueField.getColumnName()).append('=').append(uniqueField.getColumnName());
+        }
+    }
+
+    /**
+     * Fetches the values of the insert fields
+     *
+     * @return The values
+     */
+    private Object[] getValues()
+    {
+        List<ColumnField> fields = metadata.getInsertColumns();
+        Object[] values = new Object[fields.size()];
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = fields.get(i).get(object);
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,660 @@
+package me.itsmas.sql.settings;
+
+import me.itsmas.sql.execution.LaneExecutor;
+import me.itsmas.sql.execution.OverflowPolicy;
+import me.itsmas.sql.execution.Priority;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Connection pool and driver settings for a database
+ *
+ * Settings are created from one of the presets and
+ * adjusted with explicit overrides through the {@link Builder}
+ */
+public final class DatabaseSettings
+{
+    /**
+     * The maximum amount of pooled connections
+     */
+    private final int maximumPoolSize;
+
+    /**
+     * The minimum amount of idle pooled connections
+     */
+    private final int minimumIdle;
+
+    /**
+     * The time in milliseconds to wait for a pooled connection
+     */
+    private final long connectionTimeoutMillis;
+
+    /**
+     * The time in milliseconds before an idle connection is retired
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * The maximum lifetime in milliseconds of a pooled connection
+     */
+    private final long maxLifetimeMillis;
+
+    /**
+     * The time in milliseconds after which the pool reports an unreturned connection, or 0 to disable
+     */
+    private final long leakDetectionThresholdMillis;
+
+    /**
+     * The properties passed to the JDBC driver
+     */
+    private final Map<String, String> driverProperties;
+
+    /**
+     * The amount of async operation threads, or 0 to match the maximum pool size
+     */
+    private final int executorThreads;
+
+    /**
+     * The maximum amount of queued async operations
+     */
+    private final int executorQueueCapacity;
+
+    /**
+     * The policy applied when the async operation queue is full
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * The time in milliseconds a submitter waits for queue space under {@link OverflowPolicy#BLOCK}
+     */
+    private final long overflowTimeoutMillis;
+
+    /**
+     * The user-supplied executor for async operations, or null to use a bounded executor
+     */
+    private final Executor executor;
+
+    /**
+     * Whether async operations run on virtual threads when the runtime supports them
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * The amount of connections background operations cannot use, or -1 for a quarter of the pool
+     */
+    private final int reservedConnections;
+
+    private DatabaseSettings(Builder builder)
+    {
+        this.maximumPoolSize = builder.maximumPoolSize;
+        this.minimumIdle = builder.minimumIdle;
+        this.connectionTimeoutMillis = builder.connectionTimeoutMillis;
+        this.idleTimeoutMillis = builder.idleTimeoutMillis;
+        this.maxLifetimeMillis = builder.maxLifetimeMillis;
+        this.leakDetectionThresholdMillis = builder.leakDetectionThresholdMillis;
+        this.driverProperties = Collections.unmodifiableMap(new LinkedHashMap<>(builder.driverProperties));
+        this.executorThreads = builder.executorThreads;
+        this.executorQueueCapacity = builder.executorQueueCapacity;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.overflowTimeoutMillis = builder.overflowTimeoutMillis;
+        this.executor = builder.executor;
+        this.virtualThreads = builder.virtualThreads;
+        this.reservedConnections = builder.reservedConnections;
+    }
+
+    /**
+     * Creates a builder with the default settings, a pool of
+     * 10 connections and no driver level tuning
+     *
+     * @return The builder
+     */
+    public static Builder defaults()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder tuned for low latency transactional work
+     *
+     * The pool stays at its full size, connection waits fail fast and
+     * the driver caches prepared statements on both the client and
+     * server, avoiding redundant round trips for session state
+     *
+     * @return The builder
+     */
+    public static Builder oltp()
+    {
+        return new Builder()
+            .connectionTimeout(5, TimeUnit.SECONDS)
+            .cachePreparedStatements(true)
+            .preparedStatementCacheSize(250)
+            .preparedStatementCacheSqlLimit(2048)
+            .serverPreparedStatements(true)
+            .rewriteBatchedStatements(true)
+            .driverProperty("useLocalSessionState", "true")
+            .driverProperty("cacheResultSetMetadata", "true")
+            .driverProperty("cacheServerConfiguration", "true")
+            .driverProperty("elideSetAutoCommits", "true")
+            .driverProperty("maintainTimeStats", "false");
+    }
+
+    /**
+     * Creates a builder tuned for bulk loading
+     *
+     * A small pool of long-lived connections waits patiently for
+     * connections, and the driver rewrites batched statements into
+     * multi-row statements and fetches large results with a cursor
+     *
+     * @return The builder
+     */
+    public static Builder bulkLoad()
+    {
+        return new Builder()
+            .maximumPoolSize(4)
+            .connectionTimeout(60, TimeUnit.SECONDS)
+            .cachePreparedStatements(true)
+            .rewriteBatchedStatements(true)
+            .cursorFetch(true)
+            .driverProperty("useLocalSessionState", "true")
+            .driverProperty("elideSetAutoCommits", "true");
+    }
+
+    /**
+     * Fetches the maximum amount of pooled connections
+     *
+     * @return The maximum pool size
+     */
+    public int getMaximumPoolSize()
+    {
+        return maximumPoolSize;
+    }
+
+    /**
+     * Fetches the minimum amount of idle pooled connections
+     *
+     * @return The minimum idle count, or -1 to match the maximum pool size
+     */
+    public int getMinimumIdle()
+    {
+        return minimumIdle;
+    }
+
+    /**
+     * Fetches the time to wait for a pooled connection
+     *
+     * @return The connection timeout in milliseconds
+     */
+    public long getConnectionTimeoutMillis()
+    {
+        return connectionTimeoutMillis;
+    }
+
+    /**
+     * Fetches the time before an idle connection is retired
+     *
+     * @return The idle timeout in milliseconds
+     */
+    public long getIdleTimeoutMillis()
+    {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Fetches the maximum lifetime of a pooled connection
+     *
+     * @return The maximum lifetime in milliseconds
+     */
+    public long getMaxLifetimeMillis()
+    {
+        return maxLifetimeMillis;
+    }
+
+    /**
+     * Fetches the time after which the pool reports an unreturned connection
+     *
+     * @return The leak detection threshold in milliseconds, or 0 if disabled
+     */
+    public long getLeakDetectionThresholdMillis()
+    {
+        return leakDetectionThresholdMillis;
+    }
+
+    /**
+     * Fetches the properties passed to the JDBC driver
+     *
+     * @return The driver properties
+     */
+    public Map<String, String> getDriverProperties()
+    {
+        return driverProperties;
+    }
+
+    /**
+     * Fetches whether positive fetch sizes read results
+     * through a server-side cursor in chunks
+     *
+     * @see Builder#cursorFetch(boolean)
+     *
+     * @return If cursor fetching is enabled
+     */
+    public boolean isCursorFetch()
+    {
+        return Boolean.parseBoolean(driverProperties.get("useCursorFetch"));
+    }
+
+    /**
+     * Fetches the amount of async operation threads
+     *
+     * @return The thread count
+     */
+    public int getExecutorThreads()
+    {
+        return executorThreads == 0 ? maximumPoolSize : executorThreads;
+    }
+
+    /**
+     * Fetches the maximum amount of queued async operations
+     *
+     * @return The queue capacity
+     */
+    public int getExecutorQueueCapacity()
+    {
+        return executorQueueCapacity;
+    }
+
+    /**
+     * Fetches the policy applied when the async operation queue is full
+     *
+     * @return The overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy()
+    {
+        return overflowPolicy;
+    }
+
+    /**
+     * Fetches the time a submitter waits for queue space under {@link OverflowPolicy#BLOCK}
+     *
+     * @return The overflow timeout in milliseconds
+     */
+    public long getOverflowTimeoutMillis()
+    {
+        return overflowTimeoutMillis;
+    }
+
+    /**
+     * Fetches the user-supplied executor for async operations
+     *
+     * @return The executor, or null to use a bounded executor
+     */
+    @Nullable
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Fetches whether async operations run on
+     * virtual threads when the runtime supports them
+     *
+     * @return Whether virtual threads are preferred
+     */
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    /**
+     * Fetches the amount of connections reserved for interactive operations
+     *
+     * @see Priority
+     *
+     * @return The reserved connection count
+     */
+    public int getReservedConnections()
+    {
+        return reservedConnections == -1 ? maximumPoolSize / 4 : reservedConnections;
+    }
+
+    /**
+     * Fetches the maximum amount of concurrently running background operations
+     *
+     * @see Priority
+     *
+     * @return The background concurrency
+     */
+    public int getBackgroundConcurrency()
+    {
+        return Math.max(1, maximumPoolSize - getReservedConnections());
+    }
+
+    /**
+     * Builder for {@link DatabaseSettings}
+     */
+    public static final class Builder
+    {
+        private int maximumPoolSize = 10;
+        private int minimumIdle = -1;
+        private long connectionTimeoutMillis = 30_000L;
+        private long idleTimeoutMillis = 600_000L;
+        private long maxLifetimeMillis = 1_800_000L;
+        private long leakDetectionThresholdMillis = 0L;
+        private final Map<String, String> driverProperties = new LinkedHashMap<>();
+        private int executorThreads = 0;
+        private int executorQueueCapacity = 1024;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.FAIL_FAST;
+        private long overflowTimeoutMillis = 30_000L;
+        private Executor executor;
+        private boolean virtualThreads = false;
+        private int reservedConnections = -1;
+
+        private Builder() {}
+
+        /**
+         * Sets the maximum amount of pooled connections
+         *
+         * @param maximumPoolSize The maximum pool size
+         *
+         * @return The builder
+         */
+        public Builder maximumPoolSize(int maximumPoolSize)
+        {
+            checkArgument(maximumPoolSize > 0, "Pool size must be positive");
+
+            this.maximumPoolSize = maximumPoolSize;
+            return this;
+        }
+
+        /**
+         * Sets the minimum amount of idle pooled connections
+         *
+         * @param minimumIdle The minimum idle count, or -1 to match the maximum pool size
+         *
+         * @return The builder
+         */
+        public Builder minimumIdle(int minimumIdle)
+        {
+            checkArgument(minimumIdle >= -1, "Minimum idle cannot be negative");
+
+            this.minimumIdle = minimumIdle;
+            return this;
+        }
+
+        /**
+         * Sets the time to wait for a pooled connection
+         *
+         * @param timeout The timeout
+         * @param unit The unit of the timeout
+         *
+         * @return The builder
+         */
+        public Builder connectionTimeout(long timeout, @Nonnull TimeUnit unit)
+        {
+            this.connectionTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the time before an idle connection is retired
+         *
+         * @param timeout The timeout
+         * @param unit The unit of the timeout
+         *
+         * @return The builder
+         */
+        public Builder idleTimeout(long timeout, @Nonnull TimeUnit unit)
+        {
+            this.idleTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Sets the maximum lifetime of a pooled connection
+         *
+         * @param lifetime The lifetime
+         * @param unit The unit of the lifetime
+         *
+         * @return The builder
+         */
+        public Builder maxLifetime(long lifetime, @Nonnull TimeUnit unit)
+        {
+            this.maxLifetimeMillis = unit.toMillis(lifetime);
+            return this;
+        }
+
+        /**
+         * Sets the time after which the pool reports an unreturned connection
+         *
+         * @param threshold The threshold, or 0 to disable
+         * @param unit The unit of the threshold
+         *
+         * @return The builder
+         */
+        public Builder leakDetectionThreshold(long threshold, @Nonnull TimeUnit unit)
+        {
+            this.leakDetectionThresholdMillis = unit.toMillis(threshold);
+            return this;
+        }
+
+        /**
+         * Sets whether the driver caches prepared statements on the client
+         *
+         * @param cache Whether to cache statements
+         *
+         * @return The builder
+         */
+        public Builder cachePreparedStatements(boolean cache)
+        {
+            return driverProperty("cachePrepStmts", String.valueOf(cache));
+        }
+
+        /**
+         * Sets the amount of prepared statements cached per connection
+         *
+         * @param size The cache size
+         *
+         * @return The builder
+         */
+        public Builder preparedStatementCacheSize(int size)
+        {
+            return driverProperty("prepStmtCacheSize", String.valueOf(size));
+        }
+
+        /**
+         * Sets the maximum length of SQL the driver caches statements for
+         *
+         * @param limit The SQL length limit
+         *
+         * @return The builder
+         */
+        public Builder preparedStatementCacheSqlLimit(int limit)
+        {
+            return driverProperty("prepStmtCacheSqlLimit", String.valueOf(limit));
+        }
+
+        /**
+         * Sets whether statements are prepared on the server
+         *
+         * @param serverPrepared Whether to use server prepared statements
+         *
+         * @return The builder
+         */
+        public Builder serverPreparedStatements(boolean serverPrepared)
+        {
+            return driverProperty("useServerPrepStmts", String.valueOf(serverPrepared));
+        }
+
+        /**
+         * Sets whether the driver rewrites batched
+         * statements into multi-row statements
+         *
+         * @param rewrite Whether to rewrite batches
+         *
+         * @return The builder
+         */
+        public Builder rewriteBatchedStatements(boolean rewrite)
+        {
+            return driverProperty("rewriteBatchedStatements", String.valueOf(rewrite));
+        }
+
+        /**
+         * Sets whether positive fetch sizes read results
+         * through a server-side cursor in chunks
+         *
+         * @param cursorFetch Whether to use cursor fetching
+         *
+         * @return The builder
+         */
+        public Builder cursorFetch(boolean cursorFetch)
+        {
+            return driverProperty("useCursorFetch", String.valueOf(cursorFetch));
+        }
+
+        /**
+         * Sets a property passed to the JDBC driver,
+         * overriding any value set by a preset
+         *
+         * @param name The property name
+         * @param value The property value
+         *
+         * @return The builder
+         */
+        public Builder driverProperty(@Nonnull String name, @Nonnull String value)
+        {
+            driverProperties.put(name, value);
+            return this;
+        }
+
+        /**
+         * Sets the amount of async operation threads,
+         * by default matching the maximum pool size
+         *
+         * @param threads The thread count
+         *
+         * @return The builder
+         */
+        public Builder executorThreads(int threads)
+        {
+            checkArgument(threads > 0, "Thread count must be positive");
+
+            this.executorThreads = threads;
+            return this;
+        }
+
+        /**
+         * Sets the maximum amount of queued async operations
+         *
+         * @param capacity The queue capacity
+         *
+         * @return The builder
+         */
+        public Builder executorQueueCapacity(int capacity)
+        {
+            checkArgument(capacity > 0, "Queue capacity must be positive");
+
+            this.executorQueueCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the policy applied when the async operation queue is full,
+         * by default {@link OverflowPolicy#FAIL_FAST} so submitting an
+         * async operation never blocks the submitting thread
+         *
+         * @param policy The overflow policy
+         *
+         * @return The builder
+         */
+        public Builder overflowPolicy(@Nonnull OverflowPolicy policy)
+        {
+            this.overflowPolicy = policy;
+            return this;
+        }
+
+        /**
+         * Sets the time a submitter waits for queue space under {@link OverflowPolicy#BLOCK}
+         *
+         * @param timeout The timeout
+         * @param unit The unit of the timeout
+         *
+         * @return The builder
+         */
+        public Builder overflowTimeout(long timeout, @Nonnull TimeUnit unit)
+        {
+            this.overflowTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Sets an executor to run async operations on instead of the
+         * bounded executor, which is left running when the database closes
+         *
+         * Both lanes share the executor through a {@link LaneExecutor},
+         * which hands it at most the maximum pool size of operations and
+         * at most the background concurrency of background operations
+         *
+         * @param executor The executor
+         *
+         * @return The builder
+         */
+        public Builder executor(@Nonnull Executor executor)
+        {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets whether async operations run on a virtual thread each,
+         * with at most one running per pooled connection, falling back
+         * to the bounded executor on runtimes without virtual threads
+         *
+         * @param virtualThreads Whether to prefer virtual threads
+         *
+         * @return The builder
+         */
+        public Builder virtualThreads(boolean virtualThreads)
+        {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the amount of connections background operations cannot use,
+         * by default a quarter of the pool
+         *
+         * @see Priority
+         *
+         * @param reserved The reserved connection count
+         *
+         * @return The builder
+         */
+        public Builder reservedConnections(int reserved)
+        {
+            checkArgument(reserved >= 0, "Reserved connections cannot be negative");
+
+            this.reservedConnections = reserved;
+            return this;
+        }
+
+        /**
+         * Creates the settings
+         *
+         * @return The settings
+         */
+        public DatabaseSettings build()
+        {
+            checkArgument(minimumIdle <= maximumPoolSize, "Minimum idle cannot exceed the maximum pool size");
+            checkArgument(reservedConnections < maximumPoolSize, "Reserved connections must leave room for background operations");
+
+            return new DatabaseSettings(this);
+        }
+    }
+}
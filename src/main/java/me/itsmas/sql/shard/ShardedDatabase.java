@@ -0,0 +1,593 @@
+package me.itsmas.sql.shard;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import me.itsmas.sql.Database;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.types.BatchInsertOperation;
+import me.itsmas.sql.operation.types.BulkFetchOperation;
+import me.itsmas.sql.operation.types.InsertOperation;
+import me.itsmas.sql.operation.types.MultiFetchOperation;
+import me.itsmas.sql.operation.types.SaveOperation;
+import me.itsmas.sql.operation.types.SingleFetchOperation;
+import me.itsmas.sql.operation.types.StreamFetchOperation;
+import me.itsmas.sql.operation.types.UpdateOperation;
+import me.itsmas.sql.operation.types.UpsertOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import me.itsmas.sql.util.ObjectMetadata;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Spreads objects over several {@link Database} instances by their unique key
+ *
+ * Keys are placed on a consistent hash ring where every shard owns many
+ * virtual nodes, so adding a shard only moves the keys it takes over
+ * instead of reshuffling every key. Moving the rows of those keys to
+ * the new shard is left to the application
+ *
+ * Keys are hashed by their value rather than their string form, so
+ * integral keys of any numeric type, such as 1 and 1L, share a shard
+ * while the string "1" may not, and byte array keys hash their bytes.
+ * Where the class of a key is known, the key is first converted to the
+ * type of the unique field, so a lookup by "1" or by the string form
+ * of a UUID reaches the shard its row was inserted on
+ *
+ * Operations on one object or unique key are routed to the shard owning
+ * the key, while operations over many keys are split by shard and
+ * executed on every shard in parallel
+ */
+public class ShardedDatabase
+{
+    /**
+     * The default amount of virtual nodes per shard
+     */
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    /**
+     * The hash function placing keys and virtual nodes on the ring
+     */
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * The amount of virtual nodes per shard
+     */
+    private final int virtualNodes;
+
+    /**
+     * The shards by name, in the order they were added
+     */
+    private final Map<String, Database> shards = new LinkedHashMap<>();
+
+    /**
+     * The shard owning each virtual node, by the node's hash
+     */
+    private volatile NavigableMap<Long, Database> ring = new TreeMap<>();
+
+    /**
+     * {@link ShardedDatabase} constructor with the default amount of virtual nodes
+     */
+    public ShardedDatabase()
+    {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * {@link ShardedDatabase} constructor
+     *
+     * @param virtualNodes The amount of virtual nodes per shard
+     */
+    public ShardedDatabase(int virtualNodes)
+    {
+        checkArgument(virtualNodes > 0, "Virtual node count must be positive");
+
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Adds a shard to the ring
+     *
+     * @param name The unique name of the shard, which decides its place on the ring
+     * @param database The database of the shard
+     */
+    public synchronized void addShard(@Nonnull String name, @Nonnull Database database)
+    {
+        checkArgument(!shards.containsKey(name), "Shard %s already exists", name);
+
+        NavigableMap<Long, Database> ring = new TreeMap<>(this.ring);
+
+        for (int i = 0; i < virtualNodes; i++)
+        {
+            long hash = hashNode(name + '#' + i);
+
+            for (int attempt = 1; ring.containsKey(hash); attempt++)
+            {
+                hash = hashNode(name + '#' + i + '#' + attempt);
+            }
+
+            ring.put(hash, database);
+        }
+
+        shards.put(name, database);
+        this.ring = ring;
+    }
+
+    /**
+     * Fetches the shards by name
+     *
+     * @return The shards
+     */
+    public synchronized Map<String, Database> getShards()
+    {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+    }
+
+    /**
+     * Fetches the shard owning a unique key
+     *
+     * @param key The unique key
+     *
+     * @return The shard database
+     */
+    public Database getShard(@Nonnull Object key)
+    {
+        NavigableMap<Long, Database> ring = this.ring;
+
+        checkArgument(!ring.isEmpty(), "No shards have been added");
+
+        Map.Entry<Long, Database> entry = ring.ceilingEntry(hashKey(key));
+
+        return (entry == null ? ring.firstEntry() : entry).getValue();
+    }
+
+    /**
+     * Fetches the shard owning a unique key of a class, converting
+     * the key to the type of the class's unique field first
+     *
+     * @see ColumnField#toFieldType(Object)
+     *
+     * @param clazz The object class
+     * @param key The unique key
+     *
+     * @return The shard database
+     */
+    public Database getShard(@Nonnull Class<?> clazz, @Nonnull Object key)
+    {
+        return getShard(toFieldType(clazz, key));
+    }
+
+    /**
+     * Fetches the shard owning an object, by the value of its unique field
+     *
+     * @param object The object
+     *
+     * @return The shard database
+     */
+    public Database getShardFor(@Nonnull Object object)
+    {
+        return getShard(getUniqueKey(object));
+    }
+
+    /**
+     * Opens the connection of every shard
+     */
+    public void openConnection()
+    {
+        getShards().values().forEach(Database::openConnection);
+    }
+
+    /**
+     * Closes the connection of every shard
+     */
+    public void closeConnection()
+    {
+        getShards().values().forEach(Database::closeConnection);
+    }
+
+    /**
+     * Executes an operation synchronously on the shard owning its key
+     *
+     * @see #getRoutingKey(DatabaseOperation)
+     *
+     * @param operation The operation
+     *
+     * @return The operation result
+     */
+    public <T> T executeSync(@Nonnull DatabaseOperation<T> operation)
+    {
+        return route(operation).executeSync(operation);
+    }
+
+    /**
+     * Executes an operation asynchronously on the shard owning its key
+     *
+     * @see #getRoutingKey(DatabaseOperation)
+     *
+     * @param operation The operation
+     *
+     * @return A {@link CompletableFuture} holding the operation result
+     */
+    public <T> CompletableFuture<T> executeAsync(@Nonnull DatabaseOperation<T> operation)
+    {
+        return route(operation).executeAsync(operation);
+    }
+
+    /**
+     * Executes an operation synchronously on the shard owning a unique key
+     *
+     * The key is converted to the unique field's type when the operation
+     * is on objects or fetches of one class, and is otherwise hashed as
+     * given, for which {@link #getShard(Class, Object)} routes by class
+     *
+     * @param key The unique key
+     * @param operation The operation
+     *
+     * @return The operation result
+     */
+    public <T> T executeSync(@Nonnull Object key, @Nonnull DatabaseOperation<T> operation)
+    {
+        return getShard(key, operation).executeSync(operation);
+    }
+
+    /**
+     * Executes an operation asynchronously on the shard owning a unique key
+     *
+     * The key is converted to the unique field's type when the operation
+     * is on objects or fetches of one class, and is otherwise hashed as
+     * given, for which {@link #getShard(Class, Object)} routes by class
+     *
+     * @param key The unique key
+     * @param operation The operation
+     *
+     * @return A {@link CompletableFuture} holding the operation result
+     */
+    public <T> CompletableFuture<T> executeAsync(@Nonnull Object key, @Nonnull DatabaseOperation<T> operation)
+    {
+        return getShard(key, operation).executeAsync(operation);
+    }
+
+    /**
+     * Fetches objects by many unique keys, fetching
+     * the keys of every shard in parallel
+     *
+     * @see BulkFetchOperation
+     *
+     * @param clazz The class to map the resulting objects to
+     * @param keys The unique keys to fetch
+     *
+     * @return A {@link CompletableFuture} holding the objects by key, in key order
+     */
+    public <K, T> CompletableFuture<Map<K, T>> fetchAll(@Nonnull Class<T> clazz, @Nonnull Collection<K> keys)
+    {
+        List<CompletableFuture<Map<K, T>>> futures = new ArrayList<>();
+
+        groupByShard(keys, key -> toFieldType(clazz, key)).forEach((shard, shardKeys) ->
+            futures.add(shard.executeAsync(new BulkFetchOperation<>(clazz, shardKeys)))
+        );
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored ->
+        {
+            Map<K, T> found = new HashMap<>();
+            futures.forEach(future -> found.putAll(future.join()));
+
+            Map<K, T> results = new LinkedHashMap<>();
+
+            for (K key : keys)
+            {
+                T object = found.get(key);
+
+                if (object != null)
+                {
+                    results.put(key, object);
+                }
+            }
+
+            return results;
+        });
+    }
+
+    /**
+     * Inserts many objects, inserting the objects
+     * of every shard in parallel
+     *
+     * @see BatchInsertOperation
+     *
+     * @param objects The objects to insert, all of the same class
+     *
+     * @return A {@link CompletableFuture} completing once every shard has inserted its objects
+     */
+    public CompletableFuture<Void> insertAll(@Nonnull Collection<?> objects)
+    {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        groupByShard(objects, this::getUniqueKey).forEach((shard, shardObjects) ->
+            futures.add(shard.executeAsync(new BatchInsertOperation(shardObjects)))
+        );
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Runs a fetch on every shard in parallel and joins the results
+     *
+     * Results are joined in shard order, so ordering and
+     * limits only apply to the results of each shard
+     *
+     * The same operation instance is executed concurrently on every
+     * shard, so it must not be modified until the returned future completes
+     *
+     * @param operation The fetch operation
+     *
+     * @return A {@link CompletableFuture} holding the objects of every shard
+     */
+    public <T> CompletableFuture<List<T>> scatter(@Nonnull MultiFetchOperation<T> operation)
+    {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+
+        getShards().values().forEach(shard -> futures.add(shard.executeAsync(operation)));
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored ->
+        {
+            List<T> results = new ArrayList<>();
+            futures.forEach(future -> results.addAll(future.join()));
+
+            return results;
+        });
+    }
+
+    /**
+     * Fetches the unique key an operation is routed by
+     *
+     * Inserts, upserts, updates and saves are routed by the unique
+     * key of their object, and single fetches by the unique key they
+     * look up. Other operations must be given a key explicitly
+     *
+     * @param operation The operation
+     *
+     * @return The unique key, or null if the operation has no single key
+     */
+    @Nullable
+    public Object getRoutingKey(@Nonnull DatabaseOperation<?> operation)
+    {
+        if (operation instanceof InsertOperation)
+        {
+            return getUniqueKey(((InsertOperation) operation).getObject());
+        }
+
+        if (operation instanceof UpsertOperation)
+        {
+            return getUniqueKey(((UpsertOperation) operation).getObject());
+        }
+
+        if (operation instanceof UpdateOperation)
+        {
+            return getUniqueKey(((UpdateOperation) operation).getObject());
+        }
+
+        if (operation instanceof SaveOperation)
+        {
+            return getUniqueKey(((SaveOperation) operation).getObject());
+        }
+
+        if (operation instanceof SingleFetchOperation && ((SingleFetchOperation<?>) operation).isUniqueKeyLookup())
+        {
+            SingleFetchOperation<?> fetch = (SingleFetchOperation<?>) operation;
+
+            return toFieldType(fetch.getType(), fetch.getUniqueKey());
+        }
+
+        return null;
+    }
+
+    /**
+     * Fetches the shard owning a unique key given for an operation,
+     * converting the key to the unique field's type of the class
+     * the operation is on if it is known
+     *
+     * @param key The unique key
+     * @param operation The operation
+     *
+     * @return The shard database
+     */
+    private Database getShard(Object key, DatabaseOperation<?> operation)
+    {
+        Class<?> type = getKeyType(operation);
+
+        return type == null ? getShard(key) : getShard(type, key);
+    }
+
+    /**
+     * Fetches the class whose unique keys an operation is routed by
+     *
+     * @param operation The operation
+     *
+     * @return The class, or null if unknown
+     */
+    @Nullable
+    private static Class<?> getKeyType(DatabaseOperation<?> operation)
+    {
+        if (operation instanceof InsertOperation)
+        {
+            return ((InsertOperation) operation).getObject().getClass();
+        }
+
+        if (operation instanceof UpsertOperation)
+        {
+            return ((UpsertOperation) operation).getObject().getClass();
+        }
+
+        if (operation instanceof UpdateOperation)
+        {
+            return ((UpdateOperation) operation).getObject().getClass();
+        }
+
+        if (operation instanceof SaveOperation)
+        {
+            return ((SaveOperation) operation).getObject().getClass();
+        }
+
+        if (operation instanceof SingleFetchOperation)
+        {
+            return ((SingleFetchOperation<?>) operation).getType();
+        }
+
+        if (operation instanceof MultiFetchOperation)
+        {
+            return ((MultiFetchOperation<?>) operation).getType();
+        }
+
+        if (operation instanceof StreamFetchOperation)
+        {
+            return ((StreamFetchOperation<?>) operation).getType();
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts a unique key to the type of a class's unique field
+     *
+     * @param clazz The object class
+     * @param key The unique key
+     *
+     * @return The converted key
+     */
+    private static Object toFieldType(Class<?> clazz, Object key)
+    {
+        ObjectMetadata<?> metadata = ClassTools.getMetadata(clazz);
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+
+        return metadata.getUniqueColumn().toFieldType(key);
+    }
+
+    /**
+     * Fetches the shard an operation is routed to
+     *
+     * @param operation The operation
+     *
+     * @return The shard database
+     */
+    private Database route(DatabaseOperation<?> operation)
+    {
+        Object key = getRoutingKey(operation);
+
+        checkArgument(key != null, "%s cannot be routed by key, a key must be given", operation.getClass().getSimpleName());
+
+        return getShard(key);
+    }
+
+    /**
+     * Groups values by the shard owning their key
+     *
+     * @param values The values
+     * @param keyFunction The function fetching the key of a value
+     *
+     * @return The values of each shard
+     */
+    private <V> Map<Database, List<V>> groupByShard(Collection<V> values, Function<V, Object> keyFunction)
+    {
+        Map<Database, List<V>> groups = new LinkedHashMap<>();
+
+        for (V value : values)
+        {
+            groups.computeIfAbsent(getShard(keyFunction.apply(value)), shard -> new ArrayList<>()).add(value);
+        }
+
+        return groups;
+    }
+
+    /**
+     * Fetches the value of the unique field of an object
+     *
+     * @param object The object
+     *
+     * @return The unique key
+     */
+    private Object getUniqueKey(Object object)
+    {
+        ObjectMetadata<?> metadata = ClassTools.getMetadata(object.getClass());
+
+        checkArgument(metadata.hasUniqueColumn(), "Class does not contain a unique field");
+
+        return metadata.getUniqueColumn().get(object);
+    }
+
+    /**
+     * Hashes the name of a virtual node onto the ring
+     *
+     * @param node The node name
+     *
+     * @return The hash
+     */
+    private static long hashNode(String node)
+    {
+        return HASH_FUNCTION.hashString(node, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * Hashes a unique key onto the ring by a canonical encoding of its value
+     *
+     * Integral numbers are encoded by their value whatever their type,
+     * characters as one character strings, and types without a canonical
+     * encoding by their string form, each prefixed by a tag of its kind
+     *
+     * @param key The unique key
+     *
+     * @return The hash
+     */
+    private static long hashKey(Object key)
+    {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        if (key instanceof String || key instanceof Character)
+        {
+            hasher.putByte((byte) 'S').putString(key.toString(), StandardCharsets.UTF_8);
+        }
+        else if (key instanceof Byte || key instanceof Short || key instanceof Integer || key instanceof Long)
+        {
+            hasher.putByte((byte) 'I').putBytes(BigInteger.valueOf(((Number) key).longValue()).toByteArray());
+        }
+        else if (key instanceof BigInteger)
+        {
+            hasher.putByte((byte) 'I').putBytes(((BigInteger) key).toByteArray());
+        }
+        else if (key instanceof byte[])
+        {
+            hasher.putByte((byte) 'B').putBytes((byte[]) key);
+        }
+        else if (key instanceof UUID)
+        {
+            hasher.putByte((byte) 'U').putLong(((UUID) key).getMostSignificantBits()).putLong(((UUID) key).getLeastSignificantBits());
+        }
+        else if (key instanceof Enum)
+        {
+            hasher.putByte((byte) 'E').putString(((Enum<?>) key).name(), StandardCharsets.UTF_8);
+        }
+        else
+        {
+            hasher.putByte((byte) 'O').putString(key.toString(), StandardCharsets.UTF_8);
+        }
+
+        return hasher.hash().asLong();
+    }
+}
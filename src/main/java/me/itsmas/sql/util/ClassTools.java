@@ -64,6 +64,45 @@ public final class ClassTools
             }
         });
 
+    /**
+     * Cache of {@link DatabaseObject} classes to their compiled metadata
+     */
+    private static final LoadingCache<Class<?>, ObjectMetadata<?>> METADATA_CACHE = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<Class<?>, ObjectMetadata<?>>()
+        {
+            @Override
+            public ObjectMetadata<?> load(Class<?> clazz) throws Exception
+            {
+                return new ObjectMetadata<>(clazz);
+            }
+        });
+
+    /**
+     * Fetches the compiled {@link ObjectMetadata} of a {@link DatabaseObject} class
+     *
+     * @see #METADATA_CACHE
+     *
+     * @param clazz The class
+     *
+     * @return The class metadata
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ObjectMetadata<T> getMetadata(@Nonnull Class<T> clazz)
+    {
+        checkArgument(clazz.isAnnotationPresent(DatabaseObject.class), "Object class is not @DatabaseObject");
+
+        try
+        {
+            return (ObjectMetadata<T>) METADATA_CACHE.get(clazz);
+        }
+        catch (ExecutionException ex)
+        {
+            Logs.severe("Error fetching class metadata from cache");
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * Determines whether a {@link Field} is a database column
      *
@@ -143,9 +182,7 @@ public final class ClassTools
      */
     public static String getTable(@Nonnull Class<?> clazz)
     {
-        checkArgument(clazz.isAnnotationPresent(DatabaseObject.class), "Object class is not @DatabaseObject");
-
-        return clazz.getAnnotation(DatabaseObject.class).table();
+        return getMetadata(clazz).getTable();
     }
 
     /**
@@ -157,12 +194,8 @@ public final class ClassTools
      */
     public static List<Field> getInsertFields(@Nonnull Object object)
     {
-        Class<?> clazz = object.getClass();
-
-        checkArgument(clazz.isAnnotationPresent(DatabaseObject.class), "Object class is not @DatabaseObject");
-
-        return Stream.of(object.getClass().getAnnotation(DatabaseObject.class).insertFields())
-            .map(field -> getField(clazz, field))
+        return getMetadata(object.getClass()).getInsertColumns().stream()
+            .map(ColumnField::getField)
             .collect(Collectors.toList());
     }
 
@@ -174,13 +207,7 @@ public final class ClassTools
      */
     public static Field getUniqueField(@Nonnull Class<?> clazz)
     {
-        checkArgument(clazz.isAnnotationPresent(DatabaseObject.class), "Object class is not @DatabaseObject");
-
-        String fieldName = clazz.getAnnotation(DatabaseObject.class).uniqueKeyField();
-
-        checkArgument(!fieldName.isEmpty(), "Class does not contain a unique field");
-
-        return getField(clazz, fieldName);
+        return getMetadata(clazz).getUniqueColumn().getField();
     }
 
     /**
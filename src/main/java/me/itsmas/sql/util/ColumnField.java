@@ -0,0 +1,408 @@
+package me.itsmas.sql.util;
+
+import com.google.common.primitives.Primitives;
+import me.itsmas.sql.annotation.Column;
+import me.itsmas.sql.mapping.Mapping;
+import me.itsmas.sql.mapping.Mappings;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A {@link Column} field with its column name
+ * and compiled accessors resolved once
+ *
+ * The accessors are {@link MethodHandle}s held in instance fields, which
+ * HotSpot does not constant-fold or inline like handles in static final
+ * fields, so each access remains an indirect call. The saving over the
+ * previous path comes from resolving names, annotations and mappings once
+ * per class rather than from the accessors themselves
+ */
+public final class ColumnField
+{
+    /**
+     * The getter type all field getters are adapted to
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * The setter type all field setters are adapted to
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * The wrapped field
+     */
+    private final Field field;
+
+    /**
+     * The name of the column the field wraps
+     */
+    private final String columnName;
+
+    /**
+     * The compiled field getter
+     */
+    private final MethodHandle getter;
+
+    /**
+     * The compiled field setter
+     */
+    private final MethodHandle setter;
+
+    /**
+     * The mapping for the field type, resolved on first use
+     *
+     * @see #getMapping()
+     */
+    private volatile Mapping<Object> mapping;
+
+    /**
+     * {@link ColumnField} constructor
+     *
+     * @param field The accessible field to wrap
+     *
+     * @throws IllegalAccessException If the field accessors cannot be created
+     */
+    ColumnField(@Nonnull Field field) throws IllegalAccessException
+    {
+        this.field = field;
+        this.columnName = ClassTools.getColumnName(field);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+        this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    }
+
+    /**
+     * Fetches the wrapped field
+     *
+     * @return The field
+     */
+    public Field getField()
+    {
+        return field;
+    }
+
+    /**
+     * Fetches the name of the field
+     *
+     * @return The field name
+     */
+    public String getName()
+    {
+        return field.getName();
+    }
+
+    /**
+     * Fetches the name of the column the field wraps
+     *
+     * @return The column name
+     */
+    public String getColumnName()
+    {
+        return columnName;
+    }
+
+    /**
+     * Fetches the type of the field
+     *
+     * @return The field type
+     */
+    public Class<?> getType()
+    {
+        return field.getType();
+    }
+
+    /**
+     * Fetches the {@link Mapping} for the field type
+     *
+     * Mappings registered after the metadata was
+     * compiled are picked up on the next call
+     *
+     * @return The mapping, or null if none is registered
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public Mapping<Object> getMapping()
+    {
+        Mapping<Object> mapping = this.mapping;
+
+        if (mapping == null)
+        {
+            mapping = this.mapping = (Mapping<Object>) Mappings.getMapping(field.getType()).orElse(null);
+        }
+
+        return mapping;
+    }
+
+    /**
+     * Reads the field value from an object
+     *
+     * @param object The object
+     *
+     * @return The field value
+     */
+    public Object get(@Nonnull Object object)
+    {
+        try
+        {
+            return (Object) getter.invokeExact(object);
+        }
+        catch (Throwable ex)
+        {
+            Logs.severe("Error reading field %s", field.getName());
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Writes a value to the field of an object
+     *
+     * @param object The object
+     * @param value The value to set
+     */
+    public void set(@Nonnull Object object, Object value)
+    {
+        try
+        {
+            setter.invokeExact(object, value);
+        }
+        catch (Throwable ex)
+        {
+            Logs.severe("Error writing field %s", field.getName());
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Converts a key to the Java type of the field, so keys given
+     * as another numeric type, as a numeric or UUID string or as a
+     * one character string equal the field values read from objects
+     *
+     * Values which cannot be converted without loss are returned
+     * unchanged, and so match no field value
+     *
+     * @param value The value
+     *
+     * @return The value as the field type
+     */
+    public Object toFieldType(@Nonnull Object value)
+    {
+        Class<?> type = Primitives.wrap(field.getType());
+
+        if (type.isInstance(value))
+        {
+            return value;
+        }
+
+        if ((value instanceof Number || value instanceof String) && Number.class.isAssignableFrom(type))
+        {
+            try
+            {
+                BigDecimal decimal = new BigDecimal(value.toString());
+
+                if (type == Integer.class)
+                {
+                    return decimal.intValueExact();
+                }
+
+                if (type == Long.class)
+                {
+                    return decimal.longValueExact();
+                }
+
+                if (type == Short.class)
+                {
+                    return decimal.shortValueExact();
+                }
+
+                if (type == Byte.class)
+                {
+                    return decimal.byteValueExact();
+                }
+
+                if (type == BigInteger.class)
+                {
+                    return decimal.toBigIntegerExact();
+                }
+
+                if (type == BigDecimal.class)
+                {
+                    return decimal;
+                }
+
+                if (type == Double.class)
+                {
+                    double result = decimal.doubleValue();
+
+                    return new BigDecimal(String.valueOf(result)).compareTo(decimal) == 0 ? result : value;
+                }
+
+                if (type == Float.class)
+                {
+                    float result = decimal.floatValue();
+
+                    return new BigDecimal(String.valueOf(result)).compareTo(decimal) == 0 ? result : value;
+                }
+            }
+            catch (ArithmeticException | NumberFormatException ex)
+            {
+                return value;
+            }
+        }
+
+        if (type == UUID.class && value instanceof String)
+        {
+            try
+            {
+                UUID uuid = UUID.fromString((String) value);
+
+                return uuid.toString().equalsIgnoreCase((String) value) ? uuid : value;
+            }
+            catch (IllegalArgumentException ex)
+            {
+                return value;
+            }
+        }
+
+        if (type == Character.class && value instanceof String && ((String) value).length() == 1)
+        {
+            return ((String) value).charAt(0);
+        }
+
+        if (type == String.class && value instanceof Character)
+        {
+            return value.toString();
+        }
+
+        return value;
+    }
+
+    /**
+     * Pairs fetched objects with the keys they were fetched by, using
+     * the value of this field, which must be the object's unique field
+     *
+     * Keys are matched by equality first. String keys left unmatched are
+     * then matched to the rows no key matched, ignoring case, as MySQL's
+     * default collations return rows differing from a key only in case.
+     * Rows differing in accents or trailing spaces are still unmatched
+     *
+     * @param keys The keys the objects were fetched by, as the field type
+     * @param objects The fetched objects
+     *
+     * @return The object of each matched key
+     */
+    public <T> Map<Object, T> matchRows(@Nonnull Collection<?> keys, @Nonnull Collection<T> objects)
+    {
+        Map<Object, T> rows = new HashMap<>();
+
+        for (T object : objects)
+        {
+            rows.put(get(object), object);
+        }
+
+        Map<Object, T> matched = new HashMap<>();
+        List<String> unmatched = new ArrayList<>();
+
+        for (Object key : keys)
+        {
+            T object = rows.remove(key);
+
+            if (object != null)
+            {
+                matched.put(key, object);
+            }
+            else if (key instanceof String)
+            {
+                unmatched.add((String) key);
+            }
+        }
+
+        if (unmatched.isEmpty() || rows.isEmpty())
+        {
+            return matched;
+        }
+
+        Map<String, T> folded = new HashMap<>();
+
+        rows.forEach((key, object) ->
+        {
+            if (key instanceof String)
+            {
+                folded.put(((String) key).toLowerCase(Locale.ROOT), object);
+            }
+        });
+
+        for (String key : unmatched)
+        {
+            T object = folded.get(key.toLowerCase(Locale.ROOT));
+
+            if (object != null)
+            {
+                matched.put(key, object);
+            }
+        }
+
+        return matched;
+    }
+
+    /**
+     * Binds the field value of an object to a
+     * statement using the field's {@link Mapping}
+     *
+     * @param statement The statement
+     * @param index The parameter index
+     * @param object The object to read the value from
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public void updateStatement(@Nonnull PreparedStatement statement, int index, @Nonnull Object object) throws SQLException
+    {
+        setParameter(statement, index, get(object));
+    }
+
+    /**
+     * Binds a value of the field type to a
+     * statement using the field's {@link Mapping}
+     *
+     * @param statement The statement
+     * @param index The parameter index
+     * @param value The value, may be null
+     *
+     * @throws SQLException If an SQL error is encountered
+     */
+    public void setParameter(@Nonnull PreparedStatement statement, int index, @Nullable Object value) throws SQLException
+    {
+        Mapping<Object> mapping = getMapping();
+
+        if (value == null)
+        {
+            statement.setObject(index, null);
+        }
+        else if (mapping != null)
+        {
+            mapping.updateStatement(statement, value, index);
+        }
+        else
+        {
+            Logs.severe("No mapping found for class %s", field.getType().getCanonicalName());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package me.itsmas.sql.util;
+
+import com.google.common.primitives.Primitives;
+import me.itsmas.sql.annotation.Column;
+import me.itsmas.sql.annotation.DatabaseObject;
+import me.itsmas.sql.annotation.Version;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Compiled information about a {@link DatabaseObject} class
+ *
+ * Instances are created once per class and cached by {@link ClassTools#getMetadata(Class)}
+ *
+ * @param <T> The object type
+ */
+public final class ObjectMetadata<T>
+{
+    /**
+     * The object class
+     */
+    private final Class<T> clazz;
+
+    /**
+     * The table the object belongs to
+     */
+    private final String table;
+
+    /**
+     * All {@link Column} fields in declaration order
+     */
+    private final List<ColumnField> columns;
+
+    /**
+     * The column fields mapped by field name
+     */
+    private final Map<String, ColumnField> columnsByName;
+
+    /**
+     * The fields inserted when the object is first created
+     */
+    private final List<ColumnField> insertColumns;
+
+    /**
+     * The unique key field, or null if the class has none
+     */
+    private final ColumnField uniqueColumn;
+
+    /**
+     * The version field, or null if the class is not versioned
+     */
+    private final ColumnField versionColumn;
+
+    /**
+     * The compiled empty constructor
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * {@link ObjectMetadata} constructor
+     *
+     * @param clazz The {@link DatabaseObject} class
+     *
+     * @throws ReflectiveOperationException If the class accessors cannot be created
+     */
+    ObjectMetadata(@Nonnull Class<T> clazz) throws ReflectiveOperationException
+    {
+        checkArgument(clazz.isAnnotationPresent(DatabaseObject.class), "Object class is not @DatabaseObject");
+
+        DatabaseObject annotation = clazz.getAnnotation(DatabaseObject.class);
+
+        this.clazz = clazz;
+        this.table = annotation.table();
+
+        Map<String, ColumnField> columnsByName = new LinkedHashMap<>();
+
+        for (Field field : clazz.getDeclaredFields())
+        {
+            if (field.isAnnotationPresent(Column.class))
+            {
+                field.setAccessible(true);
+                columnsByName.put(field.getName(), new ColumnField(field));
+            }
+        }
+
+        this.columnsByName = Collections.unmodifiableMap(columnsByName);
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columnsByName.values()));
+
+        List<ColumnField> insertColumns = new ArrayList<>();
+
+        for (String fieldName : annotation.insertFields())
+        {
+            ColumnField column = columnsByName.get(fieldName);
+
+            checkArgument(column != null, "Insert field %s is not a column", fieldName);
+            insertColumns.add(column);
+        }
+
+        this.insertColumns = Collections.unmodifiableList(insertColumns);
+
+        String uniqueKeyField = annotation.uniqueKeyField();
+        this.uniqueColumn = uniqueKeyField.isEmpty() ? null : columnsByName.get(uniqueKeyField);
+
+        ColumnField versionColumn = null;
+
+        for (ColumnField column : columns)
+        {
+            if (column.getField().isAnnotationPresent(Version.class))
+            {
+                checkArgument(versionColumn == null, "Class declares more than one version field");
+                checkArgument(Primitives.unwrap(column.getType()) == int.class || Primitives.unwrap(column.getType()) == long.class, "Version field %s must be an int or long", column.getName());
+
+                versionColumn = column;
+            }
+        }
+
+        this.versionColumn = versionColumn;
+
+        Constructor<T> constructor = clazz.getDeclaredConstructor();
+        constructor.setAccessible(true);
+
+        this.constructor = MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+    }
+
+    /**
+     * Fetches the object class
+     *
+     * @return The class
+     */
+    public Class<T> getType()
+    {
+        return clazz;
+    }
+
+    /**
+     * Fetches the table the object belongs to
+     *
+     * @return The table name
+     */
+    public String getTable()
+    {
+        return table;
+    }
+
+    /**
+     * Fetches all column fields in declaration order
+     *
+     * @return The column fields
+     */
+    public List<ColumnField> getColumns()
+    {
+        return columns;
+    }
+
+    /**
+     * Fetches a column field by its field name
+     *
+     * @param fieldName The field name
+     *
+     * @return The column field, or null if no such column exists
+     */
+    @Nullable
+    public ColumnField getColumn(@Nonnull String fieldName)
+    {
+        return columnsByName.get(fieldName);
+    }
+
+    /**
+     * Fetches the fields inserted when the object is first created
+     *
+     * @return The insert fields
+     */
+    public List<ColumnField> getInsertColumns()
+    {
+        return insertColumns;
+    }
+
+    /**
+     * Fetches whether the class declares a unique key field
+     *
+     * @return If the class has a unique field
+     */
+    public boolean hasUniqueColumn()
+    {
+        return uniqueColumn != null;
+    }
+
+    /**
+     * Fetches the unique key field of the class
+     *
+     * @return The unique field
+     */
+    public ColumnField getUniqueColumn()
+    {
+        checkArgument(uniqueColumn != null, "Class does not contain a unique field");
+
+        return uniqueColumn;
+    }
+
+    /**
+     * Fetches whether the class declares a version field
+     *
+     * @return If the class is versioned
+     */
+    public boolean hasVersionColumn()
+    {
+        return versionColumn != null;
+    }
+
+    /**
+     * Fetches the version field of the class
+     *
+     * @see Version
+     *
+     * @return The version field, or null if the class is not versioned
+     */
+    @Nullable
+    public ColumnField getVersionColumn()
+    {
+        return versionColumn;
+    }
+
+    /**
+     * Fetches the version following the current version of an object
+     *
+     * @param object The object
+     *
+     * @return The next version, of the version field type
+     */
+    public Object getNextVersion(@Nonnull Object object)
+    {
+        checkArgument(versionColumn != null, "Class is not versioned");
+
+        long version = ((Number) versionColumn.get(object)).longValue() + 1;
+
+        return Primitives.unwrap(versionColumn.getType()) == int.class ? (Object) (int) version : (Object) version;
+    }
+
+    /**
+     * Creates a new instance of the
+     * class from its empty constructor
+     *
+     * @return The new instance
+     */
+    @SuppressWarnings("unchecked")
+    public T newInstance()
+    {
+        try
+        {
+            return (T) (Object) constructor.invokeExact();
+        }
+        catch (Throwable ex)
+        {
+            Logs.severe("Error creating new instance of class from constructor");
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import me.itsmas.sql.annotation.Column;
+import me.itsmas.sql.annotation.DatabaseObject;
+import me.itsmas.sql.annotation.Version;
+
+@DatabaseObject(
+    table = "accounts",
+    insertFields = {"id", "balance", "version"},
+    uniqueKeyField = "id"
+)
+class Account
+{
+    @Column
+    private int id;
+
+    @Column
+    private long balance;
+
+    @Version
+    @Column
+    private int version;
+
+    private Account() {}
+
+    Account(int id, long balance)
+    {
+        this.id = id;
+        this.balance = balance;
+    }
+
+    int getVersion()
+    {
+        return version;
+    }
+}
@@ -0,0 +1,151 @@
+import me.itsmas.sql.execution.BoundedExecutor;
+import me.itsmas.sql.execution.OverflowPolicy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BoundedExecutorTest
+{
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedExecutor executor;
+
+    @After
+    public void shutdown()
+    {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    private void fill(OverflowPolicy policy, long timeoutMillis) throws InterruptedException
+    {
+        executor = new BoundedExecutor("Test Worker", 1, 1, policy, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        CountDownLatch started = new CountDownLatch(1);
+
+        executor.execute(() ->
+        {
+            started.countDown();
+            await(release);
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {});
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testFailFastRejects() throws InterruptedException
+    {
+        fill(OverflowPolicy.FAIL_FAST, 0);
+
+        try
+        {
+            executor.execute(() -> {});
+            fail("Operation should be rejected");
+        }
+        catch (RejectedExecutionException ex)
+        {
+            assertEquals(1, executor.getRejectedCount());
+        }
+    }
+
+    @Test
+    public void testCallerRunsOnSubmittingThread() throws InterruptedException
+    {
+        fill(OverflowPolicy.CALLER_RUNS, 0);
+
+        AtomicReference<Thread> ran = new AtomicReference<>();
+        executor.execute(() -> ran.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ran.get());
+        assertEquals(1, executor.getCallerRunsCount());
+    }
+
+    @Test
+    public void testBlockWaitsForSpace() throws InterruptedException
+    {
+        fill(OverflowPolicy.BLOCK, 5_000);
+
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread submitter = new Thread(() -> executor.execute(ran::countDown));
+        submitter.start();
+
+        submitter.join(100);
+        assertTrue(submitter.isAlive());
+
+        release.countDown();
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getRejectedCount());
+    }
+
+    @Test
+    public void testBlockRejectsAfterTimeout() throws InterruptedException
+    {
+        fill(OverflowPolicy.BLOCK, 50);
+
+        try
+        {
+            executor.execute(() -> {});
+            fail("Operation should be rejected");
+        }
+        catch (RejectedExecutionException ex)
+        {
+            assertEquals(1, executor.getRejectedCount());
+        }
+    }
+
+    @Test
+    public void testBlockRunsEveryAcceptedOperation() throws InterruptedException
+    {
+        executor = new BoundedExecutor("Test Worker", 2, 4, OverflowPolicy.BLOCK, 5_000, TimeUnit.MILLISECONDS);
+
+        int operations = 2_000;
+        CountDownLatch ran = new CountDownLatch(operations);
+        List<Thread> submitters = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++)
+        {
+            Thread submitter = new Thread(() ->
+            {
+                for (int j = 0; j < operations / 4; j++)
+                {
+                    executor.execute(ran::countDown);
+                }
+            });
+
+            submitters.add(submitter);
+            submitter.start();
+        }
+
+        for (Thread submitter : submitters)
+        {
+            submitter.join();
+        }
+
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getRejectedCount());
+    }
+}
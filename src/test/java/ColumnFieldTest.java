@@ -0,0 +1,102 @@
+import me.itsmas.sql.annotation.Column;
+import me.itsmas.sql.annotation.DatabaseObject;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ColumnField;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class ColumnFieldTest
+{
+    @DatabaseObject(
+        table = "names",
+        insertFields = {"name"},
+        uniqueKeyField = "name"
+    )
+    static final class Name
+    {
+        @Column
+        private String name;
+
+        private Name() {}
+
+        private Name(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    @DatabaseObject(
+        table = "prices",
+        insertFields = {"price"},
+        uniqueKeyField = "price"
+    )
+    static final class Price
+    {
+        @Column
+        private double price;
+
+        private Price() {}
+    }
+
+    private final ColumnField idField = ClassTools.getMetadata(Account.class).getUniqueColumn();
+
+    private final ColumnField nameField = ClassTools.getMetadata(Name.class).getUniqueColumn();
+
+    private final ColumnField priceField = ClassTools.getMetadata(Price.class).getUniqueColumn();
+
+    @Test
+    public void testNumericKeysConverted()
+    {
+        assertEquals(5, idField.toFieldType(5L));
+        assertEquals(5, idField.toFieldType(BigInteger.valueOf(5)));
+        assertEquals(5, idField.toFieldType((short) 5));
+        assertEquals(5, idField.toFieldType("5"));
+    }
+
+    @Test
+    public void testLossyKeysUnchanged()
+    {
+        assertEquals(1L << 40, idField.toFieldType(1L << 40));
+        assertEquals(1.5, idField.toFieldType(1.5));
+        assertEquals("5x", idField.toFieldType("5x"));
+    }
+
+    @Test
+    public void testDecimalKeysConverted()
+    {
+        assertEquals(5.0, priceField.toFieldType(5));
+        assertEquals(1.5, priceField.toFieldType("1.5"));
+        assertEquals(0.1, priceField.toFieldType(new BigDecimal("0.1")));
+        assertEquals((1L << 53) + 1, priceField.toFieldType((1L << 53) + 1));
+    }
+
+    @Test
+    public void testRowsMatchedIgnoringCaseWhenUnclaimed()
+    {
+        Name sam = new Name("Sam");
+
+        Map<Object, Name> matched = nameField.matchRows(Collections.singletonList("sam"), Collections.singletonList(sam));
+
+        assertSame(sam, matched.get("sam"));
+    }
+
+    @Test
+    public void testExactMatchesClaimRows()
+    {
+        Name sam = new Name("Sam");
+
+        Map<Object, Name> matched = nameField.matchRows(Arrays.asList("Sam", "sam"), Collections.singletonList(sam));
+
+        assertSame(sam, matched.get("Sam"));
+        assertFalse(matched.containsKey("sam"));
+    }
+}
@@ -0,0 +1,86 @@
+import me.itsmas.sql.operation.condition.Condition;
+import me.itsmas.sql.operation.condition.Conditions;
+import me.itsmas.sql.operation.types.MultiFetchOperation;
+import me.itsmas.sql.operation.types.SingleFetchOperation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConditionTest
+{
+    private static String render(Condition condition)
+    {
+        StringBuilder builder = new StringBuilder();
+        condition.appendSql(builder);
+
+        return builder.toString();
+    }
+
+    private static List<Object> values(Condition condition)
+    {
+        List<Object> values = new ArrayList<>();
+        condition.appendValues(values);
+
+        return values;
+    }
+
+    @Test
+    public void testGroupOrderIgnored()
+    {
+        Condition first = Conditions.or(Conditions.equal("a", 1), Conditions.lessThan("b", 2));
+        Condition second = Conditions.or(Conditions.lessThan("b", 2), Conditions.equal("a", 1));
+
+        assertEquals("(a=? OR b<?)", render(first));
+        assertEquals(render(first), render(second));
+        assertEquals(values(first), values(second));
+    }
+
+    @Test
+    public void testStructuralTieBreak()
+    {
+        Condition first = Conditions.or(Conditions.equal("a", 1), Conditions.equal("b", 2));
+        Condition second = Conditions.or(Conditions.equal("a", 1), Conditions.equal("c", 3));
+
+        assertEquals(render(Conditions.and(first, second)), render(Conditions.and(second, first)));
+        assertEquals(values(Conditions.and(first, second)), values(Conditions.and(second, first)));
+    }
+
+    @Test
+    public void testValueTieBreak()
+    {
+        Condition first = Conditions.and(Conditions.equal("a", 1), Conditions.equal("a", 2));
+        Condition second = Conditions.and(Conditions.equal("a", 2), Conditions.equal("a", 1));
+
+        assertEquals(Arrays.asList(1, 2), values(first));
+        assertEquals(values(first), values(second));
+        assertTrue(Condition.CANONICAL_ORDER.compare(Conditions.equal("a", 1), Conditions.equal("a", 2)) < 0);
+    }
+
+    @Test
+    public void testRepeatedWhereReplacesEquality()
+    {
+        SingleFetchOperation<Account> lookup = new SingleFetchOperation<>(Account.class).where("id", 1).where("id", 2);
+
+        assertTrue(lookup.isUniqueKeyLookup());
+        assertEquals(2, lookup.getUniqueKey());
+    }
+
+    @Test
+    public void testRepeatedConditionKeepsBothConditions()
+    {
+        SingleFetchOperation<Account> lookup = new SingleFetchOperation<>(Account.class).where(Conditions.equal("id", 1)).where(Conditions.equal("id", 2));
+
+        assertFalse(lookup.isUniqueKeyLookup());
+
+        Object identity = new MultiFetchOperation<>(Account.class).where(Conditions.equal("id", 1)).where(Conditions.equal("id", 2)).getIdentity();
+
+        assertEquals(identity, new MultiFetchOperation<>(Account.class).where(Conditions.equal("id", 2)).where(Conditions.equal("id", 1)).getIdentity());
+        assertTrue(identity.toString().contains("[1, 2]"));
+    }
+}
@@ -0,0 +1,184 @@
+import me.itsmas.sql.Database;
+import me.itsmas.sql.batch.CounterAggregator;
+import me.itsmas.sql.credential.DatabaseCredentials;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.types.IncrementOperation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CounterAggregatorTest
+{
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 20_000;
+
+    @Test
+    public void testNoDeltasLostAcrossFlushes() throws InterruptedException
+    {
+        RecordingDatabase database = new RecordingDatabase(0);
+        CounterAggregator aggregator = new CounterAggregator(database, 1, TimeUnit.MILLISECONDS);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++)
+        {
+            Thread thread = new Thread(() ->
+            {
+                awaitQuietly(start);
+
+                for (int j = 0; j < INCREMENTS; j++)
+                {
+                    aggregator.increment(PlayerStats.class, 1, "kills", 1L);
+                    aggregator.increment(PlayerStats.class, 2, "playtime", 0.5);
+                }
+            });
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        aggregator.close();
+
+        assertEquals((long) THREADS * INCREMENTS, database.sum(1, "kills"), 0);
+        assertEquals(THREADS * INCREMENTS * 0.5, database.sum(2, "playtime"), 0.0001);
+        assertTrue(aggregator.getFlushCount() > 1);
+    }
+
+    @Test
+    public void testFailedWritesRetriedThenDropped() throws InterruptedException
+    {
+        RecordingDatabase database = new RecordingDatabase(Integer.MAX_VALUE);
+        CounterAggregator aggregator = new CounterAggregator(database, 1, TimeUnit.MILLISECONDS);
+
+        aggregator.increment(PlayerStats.class, 1, "kills", 5L);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (aggregator.getDroppedRowCount() == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(5);
+        }
+
+        aggregator.close();
+
+        assertEquals(1, aggregator.getDroppedRowCount());
+        assertEquals(CounterAggregator.MAX_ATTEMPTS, aggregator.getFailedWriteCount());
+    }
+
+    @Test
+    public void testFailedWriteRetried()
+    {
+        RecordingDatabase database = new RecordingDatabase(1);
+        CounterAggregator aggregator = new CounterAggregator(database, 1, TimeUnit.HOURS);
+
+        aggregator.increment(PlayerStats.class, 1, "kills", 5L);
+        aggregator.close();
+
+        assertEquals(0, database.sum(1, "kills"), 0);
+        assertEquals(1, aggregator.getDroppedRowCount());
+
+        database = new RecordingDatabase(1);
+        aggregator = new CounterAggregator(database, 1, TimeUnit.MILLISECONDS);
+
+        aggregator.increment(PlayerStats.class, 1, "kills", 5L);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (database.sum(1, "kills") == 0 && System.currentTimeMillis() < deadline)
+        {
+            Thread.yield();
+        }
+
+        aggregator.close();
+
+        assertEquals(5, database.sum(1, "kills"), 0);
+        assertEquals(1, aggregator.getFailedWriteCount());
+        assertEquals(0, aggregator.getDroppedRowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFieldRejected()
+    {
+        new CounterAggregator(new RecordingDatabase(0), 1, TimeUnit.HOURS).increment(PlayerStats.class, 1, "deaths", 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonNumericFieldRejected()
+    {
+        new CounterAggregator(new RecordingDatabase(0), 1, TimeUnit.HOURS).increment(PlayerStats.class, 1, "name", 1L);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records increments instead of writing them, failing the first writes
+     */
+    private static final class RecordingDatabase extends Database
+    {
+        private final List<IncrementOperation> operations = new ArrayList<>();
+        private final AtomicInteger failures;
+
+        private RecordingDatabase(int failures)
+        {
+            super(new DatabaseCredentials("localhost", 3306, "test", "root", "PASSWORD"));
+
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public synchronized <T> T executeSync(DatabaseOperation<T> operation)
+        {
+            if (failures.getAndUpdate(count -> Math.max(0, count - 1)) > 0)
+            {
+                throw new RuntimeException("Write failed");
+            }
+
+            operations.add((IncrementOperation) operation);
+
+            return null;
+        }
+
+        private synchronized double sum(Object uniqueKey, String fieldName)
+        {
+            double sum = 0;
+
+            for (IncrementOperation operation : operations)
+            {
+                Map<String, Number> deltas = operation.getDeltas().get(uniqueKey);
+
+                if (deltas != null && deltas.containsKey(fieldName))
+                {
+                    sum += deltas.get(fieldName).doubleValue();
+                }
+            }
+
+            return sum;
+        }
+    }
+}
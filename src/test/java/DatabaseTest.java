@@ -2,20 +2,37 @@ import me.itsmas.sql.Database;
 import me.itsmas.sql.credential.DatabaseCredentials;
 import me.itsmas.sql.mapping.Mapping;
 import me.itsmas.sql.mapping.Mappings;
+import me.itsmas.sql.operation.condition.Conditions;
+import me.itsmas.sql.operation.types.BatchInsertOperation;
+import me.itsmas.sql.operation.types.BulkFetchOperation;
 import me.itsmas.sql.operation.types.InsertOperation;
+import me.itsmas.sql.operation.types.MultiFetchOperation;
+import me.itsmas.sql.operation.types.SaveOperation;
 import me.itsmas.sql.operation.types.SingleFetchOperation;
+import me.itsmas.sql.operation.types.StreamFetchOperation;
+import me.itsmas.sql.operation.types.TransactionOperation;
 import me.itsmas.sql.operation.types.UpdateOperation;
+import me.itsmas.sql.settings.DatabaseSettings;
+import me.itsmas.sql.shard.ShardedDatabase;
 import me.itsmas.sql.util.Logs;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class DatabaseTest
 {
@@ -45,6 +62,69 @@ public class DatabaseTest
         Logs.info("Inserted user");
     }
 
+    @Test @Ignore
+    public void testBatchInsertUsers()
+    {
+        List<User> users = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            users.add(new User(UUID.randomUUID(), "User" + i));
+        }
+
+        database.executeSync(new BatchInsertOperation(users).chunkSize(250));
+        Logs.info("Inserted %s users", users.size());
+    }
+
+    @Test @Ignore
+    public void testInsertUserTransaction()
+    {
+        user.setRank(Rank.VIP);
+
+        database.executeSync(new TransactionOperation()
+            .isolation(Connection.TRANSACTION_READ_COMMITTED)
+            .add(new InsertOperation(user))
+            .add(new UpdateOperation(user, "rank"))
+        );
+
+        Logs.info("Inserted user in transaction");
+    }
+
+    @Test @Ignore
+    public void testReplicaFetchUser()
+    {
+        Database replicated = new Database(
+            new DatabaseCredentials("localhost", 3306, "test", "root", "PASSWORD"),
+            Collections.singletonList(new DatabaseCredentials("localhost", 3307, "test", "root", "PASSWORD")),
+            DatabaseSettings.defaults().build()
+        );
+
+        replicated.enableReadYourWrites(1, TimeUnit.SECONDS);
+        replicated.openConnection();
+
+        replicated.executeSync(new UpdateOperation(user, "name"));
+        printUserInfo(replicated.executeSync(new SingleFetchOperation<>(User.class).where("id", user.getId())));
+
+        replicated.closeConnection();
+    }
+
+    @Test @Ignore
+    public void testShardedFetchUsers()
+    {
+        ShardedDatabase sharded = new ShardedDatabase();
+
+        sharded.addShard("shard-1", new Database(new DatabaseCredentials("localhost", 3306, "test_1", "root", "PASSWORD")));
+        sharded.addShard("shard-2", new Database(new DatabaseCredentials("localhost", 3306, "test_2", "root", "PASSWORD")));
+        sharded.openConnection();
+
+        sharded.executeSync(new InsertOperation(user));
+
+        Map<UUID, User> users = sharded.fetchAll(User.class, Arrays.asList(user.getId(), UUID.randomUUID())).join();
+        Logs.info("Fetched %s users across shards", users.size());
+
+        sharded.closeConnection();
+    }
+
     @Test @Ignore
     public void testUpdateUser()
     {
@@ -54,6 +134,18 @@ public class DatabaseTest
         Logs.info("Updated user");
     }
 
+    @Test @Ignore
+    public void testSaveUser()
+    {
+        database.enableDirtyTracking();
+
+        User fetched = database.executeSync(new SingleFetchOperation<>(User.class).where("id", user.getId())).get();
+        fetched.setRank(Rank.VIP);
+
+        Logs.info("Saved user: %s", database.executeSync(new SaveOperation(fetched)));
+        Logs.info("Saved unchanged user: %s", database.executeSync(new SaveOperation(fetched)));
+    }
+
     @Test @Ignore
     public void testFetchUserSync()
     {
@@ -63,6 +155,48 @@ public class DatabaseTest
         printUserInfo(fetched);
     }
 
+    @Test @Ignore
+    public void testFetchUsers()
+    {
+        MultiFetchOperation<User> operation = new MultiFetchOperation<>(User.class)
+            .where(Conditions.in("rank", Rank.VIP, Rank.ADMIN))
+            .orderBy("first_join", true)
+            .limit(10);
+
+        database.executeSync(operation).forEach(user -> printUserInfo(Optional.of(user)));
+    }
+
+    @Test @Ignore
+    public void testStreamUsers()
+    {
+        try (Stream<User> users = database.executeSync(new StreamFetchOperation<>(User.class).streamRows()))
+        {
+            Logs.info("Streamed %s users", users.count());
+        }
+    }
+
+    @Test @Ignore
+    public void testBulkFetchUsers()
+    {
+        List<UUID> ids = Arrays.asList(user.getId(), UUID.randomUUID());
+        Map<UUID, User> users = database.executeSync(new BulkFetchOperation<>(User.class, ids).chunkSize(100));
+
+        Logs.info("Fetched %s of %s users", users.size(), ids.size());
+    }
+
+    @Test @Ignore
+    public void testCachedFetchUser()
+    {
+        database.enableEntityCache(User.class, 10_000, 10, TimeUnit.MINUTES);
+
+        for (int i = 0; i < 2; i++)
+        {
+            printUserInfo(database.executeSync(new SingleFetchOperation<>(User.class).where("id", user.getId())));
+        }
+
+        Logs.info("Cache hits: %s", database.getEntityCache(User.class).get().getStats().hitCount());
+    }
+
     private void printUserInfo(Optional<User> optional)
     {
         if (optional.isPresent())
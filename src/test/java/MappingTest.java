@@ -0,0 +1,73 @@
+import me.itsmas.sql.mapping.Mapping;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappingTest
+{
+    private final List<String> calls = new ArrayList<>();
+
+    private final ResultSet results = (ResultSet) Proxy.newProxyInstance(
+        ResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class},
+        (proxy, method, args) ->
+        {
+            calls.add(method.getName() + (args == null ? "" : Arrays.toString(args)));
+
+            if (method.getName().equals("getMetaData"))
+            {
+                return Proxy.newProxyInstance(
+                    ResultSetMetaData.class.getClassLoader(),
+                    new Class<?>[] {ResultSetMetaData.class},
+                    (metaProxy, metaMethod, metaArgs) -> "rank"
+                );
+            }
+
+            return "VIP";
+        }
+    );
+
+    private static class LabelMapping implements Mapping<Rank>
+    {
+        @Override
+        public void updateStatement(PreparedStatement statement, Rank data, int index) {}
+
+        @Override
+        public Rank fromResults(ResultSet results, String fieldName) throws SQLException
+        {
+            return Rank.valueOf(results.getString(fieldName));
+        }
+    }
+
+    @Test
+    public void testIndexDefaultsToLabel() throws Exception
+    {
+        assertEquals(Rank.VIP, new LabelMapping().fromResults(results, 1));
+        assertEquals(Arrays.asList("getMetaData", "getString[rank]"), calls);
+    }
+
+    @Test
+    public void testIndexOverrideUsed() throws Exception
+    {
+        Mapping<Rank> mapping = new LabelMapping()
+        {
+            @Override
+            public Rank fromResults(ResultSet results, int index) throws SQLException
+            {
+                return Rank.valueOf(results.getString(index));
+            }
+        };
+
+        assertEquals(Rank.VIP, mapping.fromResults(results, 2));
+        assertEquals(Arrays.asList("getString[2]"), calls);
+    }
+}
@@ -0,0 +1,29 @@
+import me.itsmas.sql.annotation.Column;
+import me.itsmas.sql.annotation.DatabaseObject;
+
+@DatabaseObject(
+    table = "player_stats",
+    insertFields = {"id", "kills", "playtime"},
+    uniqueKeyField = "id"
+)
+class PlayerStats
+{
+    @Column
+    private int id;
+
+    @Column
+    private long kills;
+
+    @Column
+    private double playtime;
+
+    @Column
+    private String name;
+
+    private PlayerStats() {}
+
+    PlayerStats(int id)
+    {
+        this.id = id;
+    }
+}
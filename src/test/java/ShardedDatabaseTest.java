@@ -0,0 +1,130 @@
+import me.itsmas.sql.Database;
+import me.itsmas.sql.credential.DatabaseCredentials;
+import me.itsmas.sql.operation.types.SingleFetchOperation;
+import me.itsmas.sql.shard.ShardedDatabase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedDatabaseTest
+{
+    private static final int KEYS = 20_000;
+
+    private ShardedDatabase sharded;
+
+    @Before
+    public void addShards()
+    {
+        sharded = new ShardedDatabase();
+
+        for (int i = 1; i <= 4; i++)
+        {
+            sharded.addShard("shard-" + i, createShard(i));
+        }
+    }
+
+    private static Database createShard(int index)
+    {
+        return new Database(new DatabaseCredentials("localhost", 3306, "test_" + index, "root", "PASSWORD"));
+    }
+
+    @Test
+    public void testKeysSpreadEvenly()
+    {
+        Map<Database, Integer> counts = new HashMap<>();
+
+        for (int key = 0; key < KEYS; key++)
+        {
+            counts.merge(sharded.getShard(key), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+
+        for (int count : counts.values())
+        {
+            assertTrue("Shard owns " + count + " of " + KEYS + " keys", count > KEYS / 4 * 0.75 && count < KEYS / 4 * 1.25);
+        }
+    }
+
+    @Test
+    public void testAddingShardOnlyMovesKeysToIt()
+    {
+        Map<Integer, Database> before = new HashMap<>();
+
+        for (int key = 0; key < KEYS; key++)
+        {
+            before.put(key, sharded.getShard(key));
+        }
+
+        Database added = createShard(5);
+        sharded.addShard("shard-5", added);
+
+        int moved = 0;
+
+        for (int key = 0; key < KEYS; key++)
+        {
+            Database shard = sharded.getShard(key);
+
+            if (shard != before.get(key))
+            {
+                assertSame(added, shard);
+                moved++;
+            }
+        }
+
+        assertTrue("Moved " + moved + " of " + KEYS + " keys", moved > KEYS / 5 * 0.75 && moved < KEYS / 5 * 1.25);
+    }
+
+    @Test
+    public void testKeysHashedByValue()
+    {
+        int stringMismatches = 0;
+
+        for (int key = 0; key < 1_000; key++)
+        {
+            assertSame(sharded.getShard(key), sharded.getShard((long) key));
+            assertSame(sharded.getShard(key), sharded.getShard(BigInteger.valueOf(key)));
+            assertSame(sharded.getShard(new byte[] {(byte) key, 1}), sharded.getShard(new byte[] {(byte) key, 1}));
+
+            if (sharded.getShard(key) != sharded.getShard(String.valueOf(key)))
+            {
+                stringMismatches++;
+            }
+        }
+
+        assertTrue(stringMismatches > 0);
+    }
+
+    @Test
+    public void testLookupKeysRoutedByFieldType()
+    {
+        for (int i = 0; i < 1_000; i++)
+        {
+            UUID id = UUID.randomUUID();
+            Database inserted = sharded.getShardFor(new User(id, "user"));
+
+            assertSame(inserted, sharded.getShard(User.class, id.toString()));
+            assertSame(inserted, sharded.getShard(sharded.getRoutingKey(new SingleFetchOperation<>(User.class).where("id", id.toString()))));
+
+            Database account = sharded.getShardFor(new Account(i, 0));
+
+            assertSame(account, sharded.getShard(Account.class, String.valueOf(i)));
+            assertSame(account, sharded.getShard(Account.class, (long) i));
+        }
+    }
+
+    @Test
+    public void testRoutingIsStable()
+    {
+        assertSame(sharded.getShard("key"), sharded.getShard("key"));
+        assertSame(sharded.getShard(42), sharded.getShard(42));
+    }
+}
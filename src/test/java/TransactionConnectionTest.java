@@ -0,0 +1,68 @@
+import me.itsmas.sql.connection.TransactionConnection;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransactionConnectionTest
+{
+    private List<String> calls;
+    private Connection connection;
+
+    @Before
+    public void wrapConnection()
+    {
+        calls = new ArrayList<>();
+
+        Connection target = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) ->
+            {
+                calls.add(method.getName() + (args == null ? 0 : args.length));
+                return method.getReturnType() == boolean.class ? false : null;
+            }
+        );
+
+        connection = TransactionConnection.wrap(target);
+    }
+
+    @Test
+    public void testTransactionCallsIgnored() throws SQLException
+    {
+        connection.setAutoCommit(false);
+        connection.commit();
+        connection.rollback();
+        connection.close();
+
+        assertEquals(Collections.emptyList(), calls);
+    }
+
+    @Test
+    public void testSavepointCallsForwarded() throws SQLException
+    {
+        Savepoint savepoint = connection.setSavepoint();
+        connection.rollback(savepoint);
+        connection.releaseSavepoint(savepoint);
+
+        assertEquals(Arrays.asList("setSavepoint0", "rollback1", "releaseSavepoint1"), calls);
+    }
+
+    @Test
+    public void testOtherCallsForwarded() throws SQLException
+    {
+        connection.prepareStatement("SELECT 1;");
+        connection.getAutoCommit();
+
+        assertEquals(Arrays.asList("prepareStatement1", "getAutoCommit0"), calls);
+    }
+}
@@ -0,0 +1,66 @@
+import me.itsmas.sql.operation.types.BatchUpdateOperation;
+import me.itsmas.sql.operation.types.BatchUpsertOperation;
+import me.itsmas.sql.operation.types.IncrementOperation;
+import me.itsmas.sql.operation.types.UpdateOperation;
+import me.itsmas.sql.operation.types.UpsertOperation;
+import me.itsmas.sql.util.ClassTools;
+import me.itsmas.sql.util.ObjectMetadata;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VersionTest
+{
+    private final Account account = new Account(1, 100);
+
+    @Test
+    public void testVersionColumnDetected()
+    {
+        ObjectMetadata<Account> metadata = ClassTools.getMetadata(Account.class);
+
+        assertTrue(metadata.hasVersionColumn());
+        assertEquals("version", metadata.getVersionColumn().getName());
+        assertEquals(1, metadata.getNextVersion(account));
+        assertFalse(ClassTools.getMetadata(User.class).hasVersionColumn());
+    }
+
+    @Test
+    public void testUpdateIsVersioned()
+    {
+        assertTrue(new UpdateOperation(account, "balance").isVersioned());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVersionFieldUpdateRejected()
+    {
+        new UpdateOperation(account, "version");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpsertRejected()
+    {
+        new UpsertOperation(account);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchUpsertRejected()
+    {
+        new BatchUpsertOperation(Collections.singletonList(account));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchUpdateRejected()
+    {
+        new BatchUpdateOperation(Account.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncrementRejected()
+    {
+        new IncrementOperation(account, "balance", 1);
+    }
+}
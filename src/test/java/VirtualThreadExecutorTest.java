@@ -0,0 +1,127 @@
+import me.itsmas.sql.execution.VirtualThreadExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadExecutorTest
+{
+    private static final int PERMITS = 4;
+    private static final int BACKGROUND_PERMITS = 1;
+    private static final int TASKS = 200;
+
+    private final List<VirtualThreadExecutor> executors = new ArrayList<>();
+
+    @Before
+    public void requireVirtualThreads()
+    {
+        assumeTrue("Virtual threads are not supported by this runtime", VirtualThreadExecutor.isSupported());
+    }
+
+    @After
+    public void shutdown()
+    {
+        executors.forEach(VirtualThreadExecutor::shutdown);
+    }
+
+    @Test
+    public void testLanesShareInteractivePermits() throws InterruptedException
+    {
+        VirtualThreadExecutor interactive = new VirtualThreadExecutor(PERMITS);
+        VirtualThreadExecutor background = new VirtualThreadExecutor(BACKGROUND_PERMITS, interactive);
+
+        executors.add(interactive);
+        executors.add(background);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger backgroundRunning = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger maxBackgroundRunning = new AtomicInteger();
+
+        CountDownLatch done = new CountDownLatch(TASKS * 2);
+
+        for (int i = 0; i < TASKS; i++)
+        {
+            interactive.execute(() ->
+            {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                pause();
+                running.decrementAndGet();
+                done.countDown();
+            });
+
+            background.execute(() ->
+            {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                maxBackgroundRunning.accumulateAndGet(backgroundRunning.incrementAndGet(), Math::max);
+                pause();
+                backgroundRunning.decrementAndGet();
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        awaitCompleted(interactive, TASKS);
+        awaitCompleted(background, TASKS);
+
+        assertTrue("Ran " + maxRunning.get() + " operations at once", maxRunning.get() <= PERMITS);
+        assertEquals(BACKGROUND_PERMITS, maxBackgroundRunning.get());
+        assertEquals(PERMITS, interactive.getAvailablePermits());
+        assertEquals(BACKGROUND_PERMITS, background.getAvailablePermits());
+    }
+
+    @Test
+    public void testEveryOperationCompletes() throws InterruptedException
+    {
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(2);
+        executors.add(executor);
+
+        CountDownLatch done = new CountDownLatch(TASKS);
+
+        for (int i = 0; i < TASKS; i++)
+        {
+            executor.execute(done::countDown);
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        awaitCompleted(executor, TASKS);
+
+        assertEquals(TASKS, executor.getCompletedCount());
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    /**
+     * Waits for an executor to release the permits of its finished operations
+     */
+    private static void awaitCompleted(VirtualThreadExecutor executor, long count)
+    {
+        long deadline = System.currentTimeMillis() + 5_000;
+
+        while (executor.getCompletedCount() < count && System.currentTimeMillis() < deadline)
+        {
+            Thread.yield();
+        }
+    }
+
+    private static void pause()
+    {
+        try
+        {
+            Thread.sleep(1);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import me.itsmas.sql.Database;
+import me.itsmas.sql.batch.WriteBehindQueue;
+import me.itsmas.sql.credential.DatabaseCredentials;
+import me.itsmas.sql.operation.DatabaseOperation;
+import me.itsmas.sql.operation.types.UpdateOperation;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WriteBehindQueueTest
+{
+    @Test
+    public void testFailedWriteRetried() throws Exception
+    {
+        FailingDatabase database = new FailingDatabase(2);
+        WriteBehindQueue queue = new WriteBehindQueue(database, 1, TimeUnit.MILLISECONDS, 100);
+
+        CompletableFuture<Void> future = queue.submit(new UpdateOperation(new PlayerStats(1), "kills"));
+
+        future.get(10, TimeUnit.SECONDS);
+        queue.close();
+
+        assertEquals(2, queue.getFailedFlushCount());
+        assertEquals(1, database.writes.get());
+    }
+
+    @Test
+    public void testFailedWritesRetriedThenFailed() throws InterruptedException, TimeoutException
+    {
+        FailingDatabase database = new FailingDatabase(Integer.MAX_VALUE);
+        WriteBehindQueue queue = new WriteBehindQueue(database, 1, TimeUnit.MILLISECONDS, 100);
+
+        CompletableFuture<Void> future = queue.submit(new UpdateOperation(new PlayerStats(1), "kills"));
+
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Update should fail once its retries are used up");
+        }
+        catch (ExecutionException ex)
+        {
+            assertEquals("Write failed", ex.getCause().getMessage());
+        }
+
+        queue.close();
+
+        assertEquals(WriteBehindQueue.MAX_ATTEMPTS, queue.getFailedFlushCount());
+        assertEquals(0, database.writes.get());
+    }
+
+    @Test
+    public void testFailedWriteFailedOnClose() throws InterruptedException
+    {
+        FailingDatabase database = new FailingDatabase(Integer.MAX_VALUE);
+        WriteBehindQueue queue = new WriteBehindQueue(database, 1, TimeUnit.HOURS, 100);
+
+        CompletableFuture<Void> future = queue.submit(new UpdateOperation(new PlayerStats(1), "kills"));
+        queue.close();
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals(1, queue.getFailedFlushCount());
+    }
+
+    /**
+     * Counts writes instead of executing them, failing the first writes
+     */
+    private static final class FailingDatabase extends Database
+    {
+        private final AtomicInteger failures;
+        private final AtomicInteger writes = new AtomicInteger();
+
+        private FailingDatabase(int failures)
+        {
+            super(new DatabaseCredentials("localhost", 3306, "test", "root", "PASSWORD"));
+
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public <T> T executeSync(DatabaseOperation<T> operation)
+        {
+            if (failures.getAndUpdate(count -> Math.max(0, count - 1)) > 0)
+            {
+                throw new RuntimeException("Write failed");
+            }
+
+            writes.incrementAndGet();
+
+            return null;
+        }
+    }
+}
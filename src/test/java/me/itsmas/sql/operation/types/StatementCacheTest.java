@@ -0,0 +1,75 @@
+package me.itsmas.sql.operation.types;
+
+import me.itsmas.sql.annotation.Column;
+import me.itsmas.sql.annotation.DatabaseObject;
+import me.itsmas.sql.operation.condition.Conditions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class StatementCacheTest
+{
+    @DatabaseObject(
+        table = "rows",
+        insertFields = {"id", "amount"},
+        uniqueKeyField = "id"
+    )
+    static final class Row
+    {
+        @Column
+        private int id;
+
+        @Column
+        private long amount;
+
+        private Row() {}
+    }
+
+    @Test
+    public void testKeysEqualByClassTypeAndShape()
+    {
+        StatementCache.Key key = new StatementCache.Key(Row.class, StatementCache.Type.SAVE, Arrays.asList(1, 2));
+
+        assertEquals(key, new StatementCache.Key(Row.class, StatementCache.Type.SAVE, Arrays.asList(1, 2)));
+        assertEquals(key.hashCode(), new StatementCache.Key(Row.class, StatementCache.Type.SAVE, Arrays.asList(1, 2)).hashCode());
+
+        assertNotEquals(key, new StatementCache.Key(Row.class, StatementCache.Type.SAVE, Arrays.asList(2, 1)));
+        assertNotEquals(key, new StatementCache.Key(Row.class, StatementCache.Type.UPDATE, Arrays.asList(1, 2)));
+        assertNotEquals(key, new StatementCache.Key(Object.class, StatementCache.Type.SAVE, Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void testStatementBuiltOnce()
+    {
+        StatementCache.Key key = new StatementCache.Key(Row.class, StatementCache.Type.INCREMENT);
+        AtomicInteger builds = new AtomicInteger();
+
+        String first = StatementCache.get(key, () -> "UPDATE rows" + builds.incrementAndGet());
+        String second = StatementCache.get(new StatementCache.Key(Row.class, StatementCache.Type.INCREMENT), () -> "UPDATE rows" + builds.incrementAndGet());
+
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    public void testFetchKeyIgnoresValuesAndConditionOrder()
+    {
+        String first = new MultiFetchOperation<>(Row.class)
+            .where("amount", 5L)
+            .where(Conditions.in("id", 1, 2))
+            .constructStatement();
+
+        String second = new MultiFetchOperation<>(Row.class)
+            .where(Conditions.in("id", 3, 4))
+            .where("amount", 10L)
+            .constructStatement();
+
+        assertSame(first, second);
+        assertNotEquals(first, new MultiFetchOperation<>(Row.class).where(Conditions.in("id", 1, 2, 3)).where("amount", 5L).constructStatement());
+    }
+}